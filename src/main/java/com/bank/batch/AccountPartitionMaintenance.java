@@ -0,0 +1,68 @@
+package com.bank.batch;
+
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Creates the monthly partitions of the accounts table ahead of time, from the current month up to
+ * {@code bank.database.partition-months-ahead} months later, once the application is ready and then every day.
+ * Accounts issued in a month without a partition still land in the default partition.
+ * <p>
+ * Does nothing on databases without declarative partitioning, where the accounts table stays a plain table.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "bank.database", name = "partition-accounts", havingValue = "true")
+public class AccountPartitionMaintenance {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Value("${bank.database.partition-months-ahead:3}")
+    private int monthsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bank.database.partition-cron:0 30 0 * * *}")
+    public void createUpcomingPartitions() {
+        if (!isSupported()) {
+            log.info("Accounts are not partitioned on {}", connectionFactory.getMetadata().getName());
+            return;
+        }
+        Long created = createPartitions(LocalDate.now()).block();
+        log.info("Made sure the accounts partitions of the next {} months exist ({} checked)", monthsAhead, created);
+    }
+
+    /**
+     * @return the number of months checked, from the month of {@code today} on
+     */
+    public Mono<Long> createPartitions(LocalDate today) {
+        LocalDate firstDay = today.withDayOfMonth(1);
+        return Flux.range(0, monthsAhead + 1)
+                .concatMap(offset -> databaseClient.execute("select create_accounts_partition(:month)")
+                        .bind("month", firstDay.plusMonths(offset))
+                        .fetch()
+                        .rowsUpdated())
+                .count();
+    }
+
+    public boolean isSupported() {
+        return "postgresql".equalsIgnoreCase(connectionFactory.getMetadata().getName());
+    }
+}
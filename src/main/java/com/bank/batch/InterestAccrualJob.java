@@ -0,0 +1,279 @@
+package com.bank.batch;
+
+import com.bank.model.types.Currency;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.striping.AccountStripes;
+import com.bank.writebehind.BalanceWriteBehind;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nightly interest accrual on every account balance.
+ * <p>
+ * Accounts are read in id-ordered keyset chunks and each chunk is written as one batched update in its own
+ * transaction, with up to {@code parallelism} chunks in flight on separate connections. Every account records the
+ * day it last accrued interest and the update only applies to accounts that have not accrued for the run date
+ * yet, so re-running a day is harmless. The id of the last completed chunk is checkpointed in
+ * {@code batch_checkpoint}, in chunk order, so a restarted run skips what is already done.
+ * <p>
+ * The new amount is computed here, so every update only applies while the account still has the row version it
+ * was read with. Accounts that changed in between, e.g. by a credit, a stripe rebalance or a PATCH, are read again
+ * and retried, so no concurrent change is overwritten. Sharded accounts live outside the main database, so the job
+ * refuses to start together with {@code bank.sharding.enabled}.
+ * <p>
+ * Never lazy, since only the scheduler uses it and it has to exist to be scheduled.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "bank.interest", name = "enabled", havingValue = "true")
+public class InterestAccrualJob {
+
+    static final String JOB_NAME = "interest-accrual";
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    private static final String SELECT_CHUNK = "select id, currency, amount, row_version from accounts" +
+            " where id > :lastId and (interest_accrued_on is null or interest_accrued_on < :runDate)" +
+            " order by id limit :limit";
+
+    private static final String SELECT_CHANGED = "select id, currency, amount, row_version from accounts" +
+            " where id in (:ids) and (interest_accrued_on is null or interest_accrued_on < :runDate)";
+
+    private static final String UPDATE_AMOUNT = "update accounts set amount = $1, interest_accrued_on = $2" +
+            " where id = $3 and row_version = $4 and (interest_accrued_on is null or interest_accrued_on < $5)";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private InterestProperties properties;
+
+    @Autowired(required = false)
+    private BalanceWriteBehind writeBehind;
+
+    @Autowired(required = false)
+    private AccountStripes stripes;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    @PostConstruct
+    public void checkSupported() {
+        if (shards != null) {
+            throw new IllegalStateException("Interest accrual is not supported with sharded accounts,"
+                    + " set bank.interest.enabled=false");
+        }
+    }
+
+    @Scheduled(cron = "${bank.interest.cron:0 0 1 * * *}")
+    public void runNightly() {
+        LocalDate runDate = LocalDate.now();
+        log.info("Starting interest accrual for {}", runDate);
+        Long updated = run(runDate).block();
+        log.info("Interest accrued on {} accounts for {}", updated, runDate);
+    }
+
+    /**
+     * @return the number of accounts that accrued interest
+     */
+    public Mono<Long> run(LocalDate runDate) {
+        // interest accrues on the stored amounts, so buffered balances and striped credits have to be stored first
+        Mono<Integer> flushed = writeBehind == null ? Mono.just(0) : writeBehind.flush();
+        Mono<Long> rebalanced = stripes == null ? Mono.just(0L) : stripes.rebalance();
+        return flushed.then(rebalanced).then(startingPoint(runDate))
+                .flatMapMany(startId -> readChunk(startId, runDate)
+                        .expand(chunk -> chunk.full ? readChunk(chunk.lastId, runDate) : Mono.empty()))
+                .filter(chunk -> !chunk.rows.isEmpty())
+                .flatMapSequential(chunk -> accrue(chunk.rows, runDate, 1).map(updated -> new long[]{chunk.lastId, updated}),
+                        properties.getParallelism())
+                .concatMap(result -> checkpoint(runDate, result[0]).thenReturn(result[1]))
+                .reduce(0L, Long::sum);
+    }
+
+    private BigDecimal accruedAmount(BigDecimal amount, BigDecimal annualRate) {
+        BigDecimal interest = amount.multiply(annualRate)
+                .divide(BigDecimal.valueOf(properties.getDaysInYear()), properties.getScale(), properties.getRoundingMode());
+        return amount.add(interest).setScale(properties.getScale(), properties.getRoundingMode());
+    }
+
+    private Mono<Chunk> readChunk(long afterId, LocalDate runDate) {
+        return databaseClient.execute(SELECT_CHUNK)
+                .bind("lastId", afterId)
+                .bind("runDate", runDate)
+                .bind("limit", properties.getChunkSize())
+                .map((row, metadata) -> toBalance(row))
+                .all()
+                .collectList()
+                .map(rows -> new Chunk(rows, rows.size() == properties.getChunkSize()));
+    }
+
+    /**
+     * Accrues interest on {@code rows}, then reads the accounts that changed since they were read again and
+     * accrues on those, until none is left.
+     */
+    private Mono<Long> accrue(List<AccountBalance> rows, LocalDate runDate, int attempt) {
+        List<AccountBalance> balances = new ArrayList<>();
+        for (AccountBalance balance : rows) {
+            BigDecimal rate = balance.currency == null ? null : properties.getAnnualRates().get(balance.currency);
+            if (rate != null && balance.amount != null) {
+                balances.add(new AccountBalance(balance.id, balance.currency, accruedAmount(balance.amount, rate),
+                        balance.rowVersion));
+            }
+        }
+        if (balances.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.beginTransaction())
+                        .then(update(connection, balances, runDate))
+                        .flatMap(updated -> Mono.from(connection.commitTransaction()).thenReturn(updated))
+                        .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e))),
+                Connection::close)
+                .flatMap(updated -> {
+                    List<Long> changed = new ArrayList<>();
+                    for (int i = 0; i < balances.size(); i++) {
+                        if (updated.get(i) == 0) {
+                            changed.add(balances.get(i).id);
+                        }
+                    }
+                    long accrued = balances.size() - changed.size();
+                    if (changed.isEmpty()) {
+                        return Mono.just(accrued);
+                    }
+                    if (attempt >= MAX_ATTEMPTS) {
+                        return Mono.error(new IllegalStateException("Accounts " + changed
+                                + " kept changing during interest accrual"));
+                    }
+                    return readChanged(changed, runDate)
+                            .flatMap(reread -> accrue(reread, runDate, attempt + 1))
+                            .map(retried -> accrued + retried);
+                });
+    }
+
+    /**
+     * @return the number of rows each account update changed, in the order of {@code balances}
+     */
+    private Mono<List<Integer>> update(Connection connection, List<AccountBalance> balances, LocalDate runDate) {
+        Statement statement = connection.createStatement(UPDATE_AMOUNT);
+        for (int i = 0; i < balances.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            AccountBalance balance = balances.get(i);
+            statement.bind(0, balance.amount)
+                    .bind(1, runDate)
+                    .bind(2, balance.id)
+                    .bind(3, balance.rowVersion)
+                    .bind(4, runDate);
+        }
+        return Flux.from(statement.execute())
+                .concatMap(Result::getRowsUpdated)
+                .collectList();
+    }
+
+    /**
+     * Reads the accounts among {@code ids} that still have to accrue interest for {@code runDate}; the others were
+     * accrued by a concurrent run meanwhile.
+     */
+    private Mono<List<AccountBalance>> readChanged(List<Long> ids, LocalDate runDate) {
+        return databaseClient.execute(SELECT_CHANGED)
+                .bind("ids", ids)
+                .bind("runDate", runDate)
+                .map((row, metadata) -> toBalance(row))
+                .all()
+                .collectList();
+    }
+
+    private static AccountBalance toBalance(Row row) {
+        Number currency = (Number) row.get("currency");
+        return new AccountBalance(((Number) row.get("id")).longValue(),
+                currency == null ? null : Currency.fromCode(currency.shortValue()),
+                row.get("amount", BigDecimal.class), ((Number) row.get("row_version")).longValue());
+    }
+
+    private Mono<Long> startingPoint(LocalDate runDate) {
+        return databaseClient.execute("select run_date, last_id from batch_checkpoint where job_name = :job")
+                .bind("job", JOB_NAME)
+                .map((row, metadata) -> new Object[]{row.get("run_date", LocalDate.class), ((Number) row.get("last_id")).longValue()})
+                .one()
+                .flatMap(checkpoint -> {
+                    if (runDate.equals(checkpoint[0])) {
+                        log.info("Resuming interest accrual for {} after account {}", runDate, checkpoint[1]);
+                        return Mono.just((Long) checkpoint[1]);
+                    }
+                    return databaseClient.execute("update batch_checkpoint set run_date = :runDate, last_id = 0," +
+                            " updated_at = current_timestamp where job_name = :job")
+                            .bind("runDate", runDate)
+                            .bind("job", JOB_NAME)
+                            .fetch()
+                            .rowsUpdated()
+                            .thenReturn(0L);
+                })
+                .switchIfEmpty(Mono.defer(() -> databaseClient
+                        .execute("insert into batch_checkpoint (job_name, run_date, last_id) values (:job, :runDate, 0)")
+                        .bind("job", JOB_NAME)
+                        .bind("runDate", runDate)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(0L)));
+    }
+
+    private Mono<Void> checkpoint(LocalDate runDate, long lastId) {
+        return databaseClient.execute("update batch_checkpoint set last_id = :lastId, updated_at = current_timestamp" +
+                " where job_name = :job and run_date = :runDate")
+                .bind("lastId", lastId)
+                .bind("job", JOB_NAME)
+                .bind("runDate", runDate)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private static final class AccountBalance {
+        private final long id;
+        private final Currency currency;
+        private final BigDecimal amount;
+        private final long rowVersion;
+
+        private AccountBalance(long id, Currency currency, BigDecimal amount, long rowVersion) {
+            this.id = id;
+            this.currency = currency;
+            this.amount = amount;
+            this.rowVersion = rowVersion;
+        }
+    }
+
+    private static final class Chunk {
+        private final List<AccountBalance> rows;
+        private final long lastId;
+        private final boolean full;
+
+        private Chunk(List<AccountBalance> rows, boolean full) {
+            this.rows = rows;
+            this.lastId = rows.isEmpty() ? 0 : rows.get(rows.size() - 1).id;
+            this.full = full;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.batch;
+
+import com.bank.model.types.Currency;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.interest")
+public class InterestProperties {
+
+    /**
+     * Whether the nightly accrual runs. Off by default, since it changes every balance with the configured rates.
+     */
+    private boolean enabled;
+
+    /**
+     * Yearly interest rate per currency, e.g. {@code bank.interest.annual-rates.EUR=0.015}. Accounts in a
+     * currency without a rate are left untouched. No rates are shipped; they must be set when the job is enabled.
+     */
+    private Map<Currency, BigDecimal> annualRates = new EnumMap<>(Currency.class);
+
+    private RoundingMode roundingMode = RoundingMode.HALF_EVEN;
+
+    /**
+     * Decimal places the accrued amount is rounded to, matching the {@code numeric(19,4)} amount column.
+     */
+    private int scale = 4;
+
+    private int daysInYear = 365;
+
+    private int chunkSize = 500;
+
+    /**
+     * How many chunks are written at the same time, each on its own connection.
+     */
+    private int parallelism = 4;
+
+    @PostConstruct
+    public void checkRates() {
+        if (enabled && annualRates.isEmpty()) {
+            throw new IllegalStateException("bank.interest.enabled=true needs at least one bank.interest.annual-rates entry");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.bank.batch;
+
+import com.bank.exception.AccountNotFoundException;
+import com.bank.striping.AccountStripes;
+import com.bank.striping.StripingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stripes the accounts listed in {@code bank.striping.hot-accounts} once the application is ready, turning
+ * accounts no longer listed back into plain accounts, and then every {@code bank.striping.rebalance-interval-ms}
+ * moves what the stripes collected into the account rows. That keeps the stripes small and the account rows, which
+ * interest accrual uses, at most one interval behind.
+ * <p>
+ * Never lazy, since only the scheduler uses it and it has to exist to be scheduled.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "bank.striping", name = "enabled", havingValue = "true")
+public class StripeRebalanceJob {
+
+    @Autowired
+    private AccountStripes stripes;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private StripingProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void stripeHotAccounts() {
+        Long changed = configure().block();
+        log.info("Striped {} hot accounts into {} stripes each ({} changed)", properties.getHotAccounts().size(),
+                properties.getStripes(), changed);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.striping.rebalance-interval-ms:1000}",
+            initialDelayString = "${bank.striping.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        try {
+            Long rebalanced = stripes.rebalance().block();
+            log.debug("Rebalanced the stripes of {} accounts", rebalanced);
+        } catch (RuntimeException e) {
+            log.error("Could not rebalance account stripes : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Brings the stripe count of every account in line with the configuration.
+     *
+     * @return the number of accounts whose stripe count changed
+     */
+    public Mono<Long> configure() {
+        return databaseClient.execute("select id, stripes from accounts where stripes > 0")
+                .map((row, metadata) -> new int[]{((Number) row.get("id")).intValue(), ((Number) row.get("stripes")).intValue()})
+                .all()
+                .collectMap(account -> account[0], account -> account[1])
+                .flatMapMany(current -> {
+                    Map<Integer, Integer> target = new TreeMap<>();
+                    current.keySet().forEach(id -> target.put(id, 0));
+                    properties.getHotAccounts().forEach(id -> target.put(id, properties.getStripes()));
+                    target.entrySet().removeIf(account -> account.getValue().equals(current.getOrDefault(account.getKey(), 0)));
+                    return Flux.fromIterable(target.entrySet());
+                })
+                .concatMap(account -> stripes.stripe(account.getKey(), account.getValue())
+                        .thenReturn(1L)
+                        .onErrorResume(AccountNotFoundException.class, e -> {
+                            log.warn("Hot account {} does not exist", account.getKey());
+                            return Mono.just(0L);
+                        }))
+                .reduce(0L, Long::sum);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bank.codec;
+
+import com.bank.model.dto.AccountDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes an {@link AccountDto} field by field with field names pre-encoded for the mapper, producing the same
+ * output as bean introspection without its per-property reflection.
+ */
+public class AccountDtoSerializer extends StdSerializer<AccountDto> implements ResolvableSerializer {
+
+    private JsonFields fields;
+    private SerializedString id;
+    private SerializedString iban;
+    private SerializedString currency;
+    private SerializedString amount;
+    private SerializedString customerId;
+    private SerializedString issuedAt;
+    private JsonSerializer<Object> dateSerializer;
+
+    public AccountDtoSerializer() {
+        super(AccountDto.class);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        fields = JsonFields.of(provider, AccountDto.class);
+        id = fields.name("id");
+        iban = fields.name("iban");
+        currency = fields.name("currency");
+        amount = fields.name("amount");
+        customerId = fields.name("customerId");
+        issuedAt = fields.name("issuedAt");
+        dateSerializer = provider.findValueSerializer(LocalDate.class);
+    }
+
+    @Override
+    public void serialize(AccountDto account, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(account);
+        fields.writeNumber(gen, id, account.getId());
+        fields.writeString(gen, iban, account.getIban());
+        fields.writeString(gen, currency, account.getCurrency());
+        fields.writeNumber(gen, amount, account.getAmount());
+        fields.writeNumber(gen, customerId, account.getCustomerId());
+        fields.writeValue(gen, issuedAt, account.getIssuedAt(), dateSerializer, provider);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.codec;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link CustomerDto} field by field with field names pre-encoded for the mapper, producing the same
+ * output as bean introspection. The accounts are only written when present, as their
+ * {@code @JsonInclude(NON_NULL)} asks for whatever the mapper's default inclusion is.
+ */
+public class CustomerDtoSerializer extends StdSerializer<CustomerDto> implements ResolvableSerializer {
+
+    private JsonFields fields;
+    private SerializedString id;
+    private SerializedString fullName;
+    private SerializedString address;
+    private SerializedString phoneNumber;
+    private SerializedString ssn;
+    private SerializedString accounts;
+    private JsonSerializer<Object> accountSerializer;
+
+    public CustomerDtoSerializer() {
+        super(CustomerDto.class);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        fields = JsonFields.of(provider, CustomerDto.class);
+        id = fields.name("id");
+        fullName = fields.name("fullName");
+        address = fields.name("address");
+        phoneNumber = fields.name("phoneNumber");
+        ssn = fields.name("ssn");
+        accounts = fields.name("accounts");
+        accountSerializer = provider.findValueSerializer(AccountDto.class);
+    }
+
+    @Override
+    public void serialize(CustomerDto customer, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(customer);
+        fields.writeNumber(gen, id, customer.getId());
+        fields.writeString(gen, fullName, customer.getFullName());
+        fields.writeString(gen, address, customer.getAddress());
+        fields.writeString(gen, phoneNumber, customer.getPhoneNumber());
+        fields.writeString(gen, ssn, customer.getSsn());
+        List<AccountDto> customerAccounts = customer.getAccounts();
+        if (customerAccounts != null) {
+            gen.writeFieldName(accounts);
+            gen.writeStartArray(customerAccounts.size());
+            for (AccountDto account : customerAccounts) {
+                if (account == null) {
+                    gen.writeNull();
+                } else {
+                    accountSerializer.serialize(account, gen, provider);
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.codec;
+
+import com.bank.exception.ExceptionResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes an {@link ExceptionResponse} with field names pre-encoded for the mapper, producing the same output as
+ * bean introspection.
+ */
+public class ExceptionResponseSerializer extends StdSerializer<ExceptionResponse> implements ResolvableSerializer {
+
+    private JsonFields fields;
+    private SerializedString errors;
+    private SerializedString dateTime;
+    private JsonSerializer<Object> dateTimeSerializer;
+
+    public ExceptionResponseSerializer() {
+        super(ExceptionResponse.class);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        fields = JsonFields.of(provider, ExceptionResponse.class);
+        errors = fields.name("errors");
+        dateTime = fields.name("dateTime");
+        dateTimeSerializer = provider.findValueSerializer(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(ExceptionResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(response);
+        List<String> responseErrors = response.getErrors();
+        if (fields.includes(responseErrors)) {
+            gen.writeFieldName(errors);
+            if (responseErrors == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(responseErrors.size());
+                for (String error : responseErrors) {
+                    gen.writeString(error);
+                }
+                gen.writeEndArray();
+            }
+        }
+        fields.writeValue(gen, dateTime, response.getDateTime(), dateTimeSerializer, provider);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,123 @@
+package com.bank.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Field writers shared by the DTO serializers, resolved once per mapper. Field names follow the mapper's naming
+ * strategy, and values are left out as the mapper's default property inclusion for the type says, like bean
+ * introspection does. Inclusions that compare with default values or call filters are rejected rather than
+ * ignored.
+ */
+final class JsonFields {
+
+    private final SerializationConfig config;
+    private final JsonInclude.Include inclusion;
+
+    private JsonFields(SerializationConfig config, JsonInclude.Include inclusion) {
+        this.config = config;
+        this.inclusion = inclusion;
+    }
+
+    static JsonFields of(SerializerProvider provider, Class<?> type) throws JsonMappingException {
+        JsonInclude.Include inclusion = provider.getConfig().getDefaultPropertyInclusion(type).getValueInclusion();
+        switch (inclusion) {
+            case ALWAYS:
+            case USE_DEFAULTS:
+            case NON_NULL:
+            case NON_ABSENT:
+            case NON_EMPTY:
+                return new JsonFields(provider.getConfig(), inclusion);
+            default:
+                throw JsonMappingException.from(provider,
+                        "Property inclusion " + inclusion + " is not supported by the serializer of " + type.getName());
+        }
+    }
+
+    /**
+     * @return the pre-encoded name of a property, after the naming strategy
+     */
+    SerializedString name(String property) {
+        PropertyNamingStrategy naming = config.getPropertyNamingStrategy();
+        return new SerializedString(naming == null ? property : naming.nameForGetterMethod(config, null, property));
+    }
+
+    boolean includes(Object value) {
+        if (value == null) {
+            return inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+        }
+        if (inclusion == JsonInclude.Include.NON_EMPTY) {
+            if (value instanceof String) {
+                return !((String) value).isEmpty();
+            }
+            if (value instanceof Collection) {
+                return !((Collection<?>) value).isEmpty();
+            }
+        }
+        return true;
+    }
+
+    void writeNumber(JsonGenerator gen, SerializableString name, Integer value) throws IOException {
+        if (!includes(value)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    void writeNumber(JsonGenerator gen, SerializableString name, BigDecimal value) throws IOException {
+        if (!includes(value)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        if (!includes(value)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value);
+        }
+    }
+
+    /**
+     * Writes a value through the serializer the mapper has for its type, so e.g. dates keep following the
+     * mapper's {@code WRITE_DATES_AS_TIMESTAMPS} setting.
+     */
+    void writeValue(JsonGenerator gen, SerializableString name, Object value, JsonSerializer<Object> serializer,
+                    SerializerProvider provider) throws IOException {
+        if (!includes(value)) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            serializer.serialize(value, gen, provider);
+        }
+    }
+}
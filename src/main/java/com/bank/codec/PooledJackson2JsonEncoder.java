@@ -0,0 +1,57 @@
+package com.bank.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A JSON encoder that writes every value straight into a buffer of the response's buffer factory. The stock
+ * encoder first writes into a byte array builder and then copies the bytes into a new buffer; on Reactor Netty the
+ * factory hands out pooled buffers, which go back to the pool once the response is written, so encoding a value
+ * no longer allocates memory proportional to its size.
+ */
+public class PooledJackson2JsonEncoder extends Jackson2JsonEncoder {
+
+    public PooledJackson2JsonEncoder(ObjectMapper mapper) {
+        super(mapper);
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        Class<?> jsonView = hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null;
+        ObjectWriter writer = jsonView != null ? getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer();
+        JavaType javaType = getJavaType(valueType.getType(), null);
+        if (javaType.isContainerType()) {
+            writer = writer.forType(javaType);
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer();
+        boolean release = true;
+        try (JsonGenerator generator = getObjectMapper().getFactory()
+                .createGenerator(buffer.asOutputStream(), getJsonEncoding(mimeType))) {
+            writer.writeValue(generator, value);
+            generator.flush();
+            release = false;
+            return buffer;
+        } catch (IOException ex) {
+            throw new EncodingException("JSON encoding error: " + ex.getMessage(), ex);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.bank.config;
+
+import com.bank.codec.PooledJackson2JsonEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class CodecConfiguration {
+
+    /**
+     * Replaces the JSON encoder Spring Boot registers, ordered after Boot's own customizer so it wins, keeping
+     * Boot's configured {@link ObjectMapper}.
+     */
+    @Bean
+    @Order(1)
+    @ConditionalOnProperty(prefix = "bank.codec", name = "pooled-buffers", havingValue = "true")
+    public CodecCustomizer pooledJsonEncoderCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.defaultCodecs().jackson2JsonEncoder(new PooledJackson2JsonEncoder(objectMapper));
+    }
+}
@@ -1,5 +1,9 @@
 package com.bank.config;
 
+import com.bank.config.converter.CurrencyReadingConverter;
+import com.bank.config.converter.CurrencyWritingConverter;
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import com.bank.resilience.LimitedConnectionFactory;
 import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
 import io.r2dbc.spi.ConnectionFactories;
@@ -9,13 +13,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.connectionfactory.init.CompositeDatabasePopulator;
 import org.springframework.data.r2dbc.connectionfactory.init.ConnectionFactoryInitializer;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulator;
 import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
 import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @RequiredArgsConstructor
@@ -24,38 +34,79 @@ public class DatabaseConnectionConfiguration extends AbstractR2dbcConfiguration
     @Value("${spring.profiles.active}")
     private String profile;
 
-    @Autowired
-    private DatabaseConnectionConfiguration databaseConnectionConfiguration;
+    @Value("${bank.database.clean-on-startup:false}")
+    private boolean cleanOnStartup;
+
+    @Value("${bank.database.seed:false}")
+    private boolean seed;
+
+    @Value("${bank.database.initialize-on-first-use:false}")
+    private boolean initializeOnFirstUse;
+
+    @Value("${bank.database.partition-accounts:false}")
+    private boolean partitionAccounts;
 
+    @Autowired(required = false)
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Migrates the schema while the application starts, unless {@code bank.database.initialize-on-first-use} leaves
+     * that to the first connection request. Never lazy: nothing else would ever ask for it.
+     */
     @Bean
+    @Lazy(false)
     public ConnectionFactoryInitializer initializer(ConnectionFactory connectionFactory) {
         ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
         initializer.setConnectionFactory(connectionFactory);
-        CompositeDatabasePopulator populator = new CompositeDatabasePopulator();
-        populator.addPopulators(new ResourceDatabasePopulator(new ClassPathResource("data.sql")));
-        initializer.setDatabasePopulator(populator);
+        initializer.setDatabasePopulator(databasePopulator(connectionFactory));
+        initializer.setEnabled(!initializeOnFirstUse);
         return initializer;
     }
 
     @Bean
-    public R2dbcEntityTemplate r2dbcEntityTemplate() {
-        return new R2dbcEntityTemplate(DatabaseClient.builder().connectionFactory(
-                databaseConnectionConfiguration.connectionFactory()
-        ).build());
+    public R2dbcEntityTemplate r2dbcEntityTemplate(DatabaseClient databaseClient, ReactiveDataAccessStrategy dataAccessStrategy) {
+        return new R2dbcEntityTemplate(databaseClient, dataAccessStrategy);
+    }
+
+    @Override
+    protected List<Object> getCustomConverters() {
+        return Arrays.asList(new CurrencyReadingConverter(), new CurrencyWritingConverter());
     }
 
     @Override
     @Bean
     public ConnectionFactory connectionFactory() {
+        ConnectionFactory connectionFactory;
         if ("dev".equals(profile)) {
-            return new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
+            connectionFactory = new PostgresqlConnectionFactory(PostgresqlConnectionConfiguration.builder()
                     .host("localhost")
                     .port(5432)
                     .database("homebank")
                     .username("admin")
                     .password("admin").build());
         } else {
-            return ConnectionFactories.get("r2dbc:h2:mem:///test?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+            connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///test?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        }
+        if (concurrencyLimiter != null) {
+            connectionFactory = new LimitedConnectionFactory(connectionFactory, concurrencyLimiter);
+        }
+        if (initializeOnFirstUse) {
+            connectionFactory = new InitializingConnectionFactory(connectionFactory, databasePopulator(connectionFactory));
+        }
+        return connectionFactory;
+    }
+
+    private DatabasePopulator databasePopulator(ConnectionFactory connectionFactory) {
+        CompositeDatabasePopulator populator = new CompositeDatabasePopulator();
+        String vendor = connectionFactory.getMetadata().getName();
+        populator.addPopulators(new SchemaMigrationPopulator(vendor, cleanOnStartup));
+        // only PostgreSQL has declarative partitioning, other databases keep the plain accounts table
+        if (partitionAccounts && "postgresql".equalsIgnoreCase(vendor)) {
+            populator.addPopulators(SchemaMigrationPopulator.forFolder(vendor, "postgresql-partitioned"));
+        }
+        if (seed) {
+            populator.addPopulators(new ResourceDatabasePopulator(new ClassPathResource("db/seed.sql")));
         }
+        return populator;
     }
 }
@@ -0,0 +1,69 @@
+package com.bank.config;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the {@link DatabasePopulator} when the first connection is requested instead of while the application
+ * starts. Requests arriving in the meantime wait for it; if it fails they all see the error and the next request
+ * tries again.
+ */
+@Slf4j
+public class InitializingConnectionFactory implements ConnectionFactory {
+
+    private final ConnectionFactory delegate;
+    private final DatabasePopulator populator;
+    private final AtomicReference<Mono<Void>> initialization = new AtomicReference<>();
+
+    private volatile boolean initialized;
+
+    public InitializingConnectionFactory(ConnectionFactory delegate, DatabasePopulator populator) {
+        this.delegate = delegate;
+        this.populator = populator;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        if (initialized) {
+            return delegate.create();
+        }
+        return initialize().then(Mono.from(delegate.create()));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    private Mono<Void> initialize() {
+        while (true) {
+            Mono<Void> current = initialization.get();
+            if (current != null) {
+                return current;
+            }
+            MonoProcessor<Void> attempt = MonoProcessor.create();
+            if (initialization.compareAndSet(null, attempt)) {
+                long start = System.nanoTime();
+                Mono.usingWhen(delegate.create(), populator::populate, Connection::close)
+                        .doOnSuccess(done -> {
+                            initialized = true;
+                            log.info("Initialized the database on first use in {} ms", (System.nanoTime() - start) / 1_000_000);
+                        })
+                        .doOnError(e -> {
+                            initialization.compareAndSet(attempt, null);
+                            log.error("Could not initialize the database : {}", e.getMessage());
+                        })
+                        .subscribe(attempt);
+                return attempt;
+            }
+        }
+    }
+}
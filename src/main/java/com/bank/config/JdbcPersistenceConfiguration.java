@@ -0,0 +1,62 @@
+package com.bank.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+
+/**
+ * Blocking JDBC access for the short read queries, enabled with {@code bank.persistence.mode=jdbc}.
+ * <p>
+ * JDBC calls run on a dedicated bounded scheduler with exactly as many threads as the pool has connections, so a
+ * thread never waits for a connection and the event loop never blocks. It points at the same database as the
+ * R2DBC connection factory, and its calls take permits from the same concurrency limiter (see {@code JdbcCalls}).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bank.persistence", name = "mode", havingValue = "jdbc")
+public class JdbcPersistenceConfiguration {
+
+    @Value("${spring.profiles.active}")
+    private String profile;
+
+    @Value("${bank.persistence.jdbc.pool-size:16}")
+    private int poolSize;
+
+    @Value("${bank.persistence.jdbc.queue-size:10000}")
+    private int queueSize;
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource jdbcDataSource() {
+        HikariConfig config = new HikariConfig();
+        if ("dev".equals(profile)) {
+            config.setJdbcUrl("jdbc:postgresql://localhost:5432/homebank");
+            config.setUsername("admin");
+            config.setPassword("admin");
+        } else {
+            config.setJdbcUrl("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+            config.setUsername("sa");
+        }
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setPoolName("bank-jdbc");
+        config.setReadOnly(true);
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource jdbcDataSource) {
+        return new NamedParameterJdbcTemplate(jdbcDataSource);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler() {
+        return Schedulers.newBoundedElastic(poolSize, queueSize, "jdbc");
+    }
+}
@@ -0,0 +1,21 @@
+package com.bank.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+@Configuration
+public class NettyServerConfiguration {
+
+    /**
+     * Serves cleartext HTTP/2 (h2c, prior knowledge or upgrade) next to HTTP/1.1. {@code server.http2.enabled}
+     * only negotiates HTTP/2 over TLS, which makes it unusable for local testing.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "bank.server.h2c", name = "enabled", havingValue = "true")
+    public NettyServerCustomizer h2cServerCustomizer() {
+        return httpServer -> httpServer.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+    }
+}
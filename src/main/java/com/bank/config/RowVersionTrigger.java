@@ -0,0 +1,19 @@
+package com.bank.config;
+
+import org.h2.tools.TriggerAdapter;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * H2 counterpart of the {@code increment_row_version()} Postgres trigger function: bumps {@code row_version}
+ * on every update, whatever the statement itself wrote into the column.
+ */
+public class RowVersionTrigger extends TriggerAdapter {
+
+    @Override
+    public void fire(Connection conn, ResultSet oldRow, ResultSet newRow) throws SQLException {
+        newRow.updateLong("row_version", oldRow.getLong("row_version") + 1);
+    }
+}
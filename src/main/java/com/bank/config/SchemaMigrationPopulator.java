@@ -0,0 +1,215 @@
+package com.bank.config;
+
+import io.r2dbc.spi.Connection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulator;
+import org.springframework.data.r2dbc.connectionfactory.init.ScriptUtils;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned migration scripts ({@code V<version>__<description>.sql}) in the style of Flyway.
+ * <p>
+ * Scripts are picked up from {@code db/migration/common} and from the folder named after the database
+ * vendor ({@code db/migration/h2}, {@code db/migration/postgresql}). Every applied script is recorded in
+ * {@code schema_version} together with its checksum, so a restart only runs the pending ones and fails
+ * fast if an already applied script was edited afterwards, or if a script is pending below the highest applied
+ * version, since it was written for a schema the database has moved past. Versions that are recorded but whose
+ * script no longer exists are ignored.
+ * <p>
+ * Migrations that only some databases get, such as {@code db/migration/shard} for account shards or the optional
+ * {@code db/migration/postgresql-partitioned}, are kept out of that sequence: {@link #forFolder} applies them with
+ * a version history of their own, after the shared migrations, so turning one on later never slips it in between.
+ */
+@Slf4j
+public class SchemaMigrationPopulator implements DatabasePopulator {
+
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String CREATE_HISTORY_TABLE = "create table if not exists %s (" +
+            "version integer primary key not null, " +
+            "description varchar(200) not null, " +
+            "checksum bigint not null, " +
+            "installed_on timestamp default current_timestamp)";
+
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+    private final String vendor;
+
+    private final boolean cleanOnStartup;
+
+    private final String historyTable;
+
+    private final String[] folders;
+
+    public SchemaMigrationPopulator(String databaseName, boolean cleanOnStartup) {
+        this(databaseName, cleanOnStartup, "schema_version", "common", databaseName.toLowerCase());
+    }
+
+    private SchemaMigrationPopulator(String databaseName, boolean cleanOnStartup, String historyTable, String... folders) {
+        this.vendor = databaseName.toLowerCase();
+        this.cleanOnStartup = cleanOnStartup;
+        this.historyTable = historyTable;
+        this.folders = folders;
+    }
+
+    /**
+     * Applies the scripts of {@code db/migration/<folder>} only, recording them in a
+     * {@code schema_version_<folder>} table. Meant to run after the shared migrations of the same database.
+     */
+    public static SchemaMigrationPopulator forFolder(String databaseName, String folder) {
+        return new SchemaMigrationPopulator(databaseName, false, "schema_version_" + folder.replace('-', '_'), folder);
+    }
+
+    @Override
+    public Mono<Void> populate(Connection connection) {
+        List<Migration> migrations = resolveMigrations();
+        return clean(connection)
+                .then(execute(connection, String.format(CREATE_HISTORY_TABLE, historyTable)))
+                .then(appliedChecksums(connection))
+                .flatMapMany(applied -> Flux.fromIterable(pending(migrations, applied)))
+                .concatMap(migration -> apply(connection, migration))
+                .then();
+    }
+
+    private Mono<Void> clean(Connection connection) {
+        if (!cleanOnStartup) {
+            return Mono.empty();
+        }
+        log.warn("Dropping every object of the {} database before migrating", vendor);
+        if ("h2".equals(vendor)) {
+            return execute(connection, "drop all objects");
+        }
+        return execute(connection, "drop schema public cascade")
+                .then(execute(connection, "create schema public"));
+    }
+
+    private List<Migration> pending(List<Migration> migrations, Map<Integer, Long> applied) {
+        int lastApplied = 0;
+        for (Migration migration : migrations) {
+            if (applied.containsKey(migration.version)) {
+                lastApplied = migration.version;
+            }
+        }
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            if (isPending(migration, applied)) {
+                if (migration.version < lastApplied) {
+                    throw new IllegalStateException("Migration " + migration.resource.getFilename()
+                            + " is pending but version " + lastApplied + " is already applied");
+                }
+                pending.add(migration);
+            }
+        }
+        return pending;
+    }
+
+    private boolean isPending(Migration migration, Map<Integer, Long> applied) {
+        Long checksum = applied.get(migration.version);
+        if (checksum == null) {
+            return true;
+        }
+        if (checksum != migration.checksum) {
+            throw new IllegalStateException("Migration " + migration.resource.getFilename()
+                    + " was changed after it has been applied");
+        }
+        return false;
+    }
+
+    private Mono<Void> apply(Connection connection, Migration migration) {
+        log.info("Applying migration {}", migration.resource.getFilename());
+        return Mono.from(connection.beginTransaction())
+                .then(ScriptUtils.executeSqlScript(connection, migration.resource))
+                .then(Flux.from(connection
+                        .createStatement("insert into " + historyTable + " (version, description, checksum) values ($1, $2, $3)")
+                        .bind(0, migration.version)
+                        .bind(1, migration.description)
+                        .bind(2, migration.checksum)
+                        .execute())
+                        .flatMap(result -> result.getRowsUpdated())
+                        .then())
+                .then(Mono.from(connection.commitTransaction()))
+                .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e)));
+    }
+
+    private Mono<Map<Integer, Long>> appliedChecksums(Connection connection) {
+        return Flux.from(connection.createStatement("select version, checksum from " + historyTable).execute())
+                .flatMap(result -> result.map((row, metadata) -> new Object[]{
+                        row.get("version", Integer.class), row.get("checksum", Long.class)}))
+                .collectMap(values -> (Integer) values[0], values -> (Long) values[1]);
+    }
+
+    private Mono<Void> execute(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(result -> result.getRowsUpdated())
+                .then();
+    }
+
+    private List<Migration> resolveMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String folder : folders) {
+            for (Resource resource : scripts(folder)) {
+                Matcher matcher = MIGRATION_NAME.matcher(resource.getFilename());
+                if (matcher.matches()) {
+                    migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2), resource));
+                }
+            }
+        }
+        migrations.sort(Comparator.comparingInt(migration -> migration.version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version) {
+                throw new IllegalStateException("Found more than one migration with version " + migrations.get(i).version);
+            }
+        }
+        return migrations;
+    }
+
+    private Resource[] scripts(String folder) {
+        try {
+            return resourceResolver.getResources("classpath*:db/migration/" + folder + "/*.sql");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final Resource resource;
+        private final long checksum;
+
+        private Migration(int version, String description, Resource resource) {
+            this.version = version;
+            this.description = description.replace('_', ' ');
+            this.resource = resource;
+            this.checksum = checksum(resource);
+        }
+
+        private static long checksum(Resource resource) {
+            try {
+                CRC32 crc = new CRC32();
+                crc.update(StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8)
+                        .replace("\r\n", "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                return crc.getValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.bank.config;
+
+import com.bank.startup.StartupTimeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfiguration {
+
+    /**
+     * Static so that it is registered before the other beans are created and can time them.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "bank.startup", name = "report", havingValue = "true")
+    public static StartupTimeline startupTimeline(@Value("${bank.startup.report-size:25}") int reportSize) {
+        return new StartupTimeline(reportSize);
+    }
+}
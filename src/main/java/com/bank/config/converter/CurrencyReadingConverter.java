@@ -0,0 +1,13 @@
+package com.bank.config.converter;
+
+import com.bank.model.types.Currency;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+@ReadingConverter
+public class CurrencyReadingConverter implements Converter<Short, Currency> {
+    @Override
+    public Currency convert(Short source) {
+        return Currency.fromCode(source);
+    }
+}
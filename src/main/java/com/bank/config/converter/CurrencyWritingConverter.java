@@ -0,0 +1,13 @@
+package com.bank.config.converter;
+
+import com.bank.model.types.Currency;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+@WritingConverter
+public class CurrencyWritingConverter implements Converter<Currency, Short> {
+    @Override
+    public Short convert(Currency source) {
+        return source.getCode();
+    }
+}
@@ -1,9 +1,16 @@
 package com.bank.controller;
 
 import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.BulkItemResultDto;
+import com.bank.model.dto.CreditDto;
+import com.bank.model.dto.CustomerBalanceDto;
 import com.bank.service.AccountService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -28,13 +35,24 @@ public class AccountController {
 
     @GetMapping
 
-    public Flux<AccountDto> getAllAccounts() {
-        return accountService.getAllAccounts();
+    public Mono<ResponseEntity<Flux<AccountDto>>> getAllAccounts(ServerWebExchange exchange) {
+        return ETags.tagged(exchange, accountService.getAllAccountsVersion(), accountService::getAllAccounts);
     }
 
     @GetMapping("/{id}")
-    public Mono<AccountDto> getAccountById(@PathVariable Integer id) {
-        return accountService.getById(id);
+    public Mono<ResponseEntity<AccountDto>> getAccountById(@PathVariable Integer id, ServerWebExchange exchange) {
+        // the version includes buffered and striped amounts, which the row version of the account misses
+        return ETags.taggedOne(exchange, accountService.getVersion(id), () -> accountService.getById(id));
+    }
+
+    @PostMapping("/_mget")
+    public Flux<AccountDto> getAccountsByIds(@RequestBody List<Integer> ids) {
+        return accountService.getByIds(ids);
+    }
+
+    @GetMapping("/iban/{iban}")
+    public Mono<AccountDto> getAccountByIban(@PathVariable String iban) {
+        return accountService.getByIban(iban);
     }
 
     @PatchMapping
@@ -57,9 +75,36 @@ public class AccountController {
         return accountService.createAccount(accountDto);
     }
 
+    @PostMapping("/{id}/_credit")
+    public Mono<AccountDto> creditAccount(@PathVariable Integer id, @RequestBody @Valid CreditDto credit) {
+        return accountService.credit(id, credit.getAmount()).then(Mono.defer(() -> accountService.getById(id)));
+    }
+
+    @PostMapping("/_bulk")
+    public Flux<BulkItemResultDto<AccountDto>> importAccounts(@RequestBody List<AccountDto> accounts) {
+        return accountService.importAccounts(accounts);
+    }
+
     @GetMapping("/customer/{customerId}")
-    public Flux<AccountDto> getAllAccountsForCustomer(@PathVariable Integer customerId) {
-        return accountService.getAccountsForCustomer(customerId);
+    public Flux<AccountDto> getAllAccountsForCustomer(@PathVariable Integer customerId,
+                                                      @RequestParam(required = false) String currency) {
+        if (currency == null) {
+            return accountService.getAccountsForCustomer(customerId);
+        }
+        return accountService.getAccountsForCustomer(customerId, currency);
+    }
+
+    @GetMapping(value = "/issued", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE,
+            BankMediaTypes.APPLICATION_SMILE_VALUE, BankMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<AccountDto> getAccountsIssuedBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return accountService.getAccountsIssuedBetween(from, to);
+    }
+
+    @GetMapping("/customer/{customerId}/balance")
+    public Mono<CustomerBalanceDto> getCustomerBalance(@PathVariable Integer customerId,
+                                                       @RequestParam(defaultValue = "EUR") String currency) {
+        return accountService.getCustomerBalance(customerId, currency);
     }
 
 }
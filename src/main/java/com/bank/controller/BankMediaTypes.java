@@ -0,0 +1,19 @@
+package com.bank.controller;
+
+/**
+ * Media types the controllers produce besides JSON.
+ * <p>
+ * Smile is Jackson's binary JSON encoding: the same {@code AccountDto}/{@code CustomerDto} structure without
+ * textual numbers and with back-referenced field names, which makes large lists smaller and cheaper to encode.
+ * WebFlux registers its codecs as soon as {@code jackson-dataformat-smile} is on the classpath, so every endpoint
+ * without an explicit {@code produces} negotiates it from the {@code Accept} header.
+ */
+public final class BankMediaTypes {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    private BankMediaTypes() {
+    }
+}
@@ -1,13 +1,18 @@
 package com.bank.controller;
 
+import com.bank.model.dto.BulkItemResultDto;
 import com.bank.model.dto.CustomerDto;
 import com.bank.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1/customers")
@@ -16,13 +21,38 @@ public class CustomerController {
     private CustomerService customerService;
 
     @GetMapping
-    public Flux<CustomerDto> getAllCustomers() {
-        return customerService.getAllCustomers();
+    public Mono<ResponseEntity<Flux<CustomerDto>>> getAllCustomers(@RequestParam(required = false) String expand,
+                                                                   ServerWebExchange exchange) {
+        if (expand == null) {
+            return ETags.tagged(exchange, customerService.getAllCustomersVersion(), customerService::getAllCustomers);
+        }
+        return expandAccounts(expand).then(ETags.tagged(exchange, customerService.getAllCustomersWithAccountsVersion(),
+                customerService::getAllCustomersWithAccounts));
+    }
+
+    @PostMapping("/_mget")
+    public Flux<CustomerDto> getCustomersByIds(@RequestBody List<Integer> ids) {
+        return customerService.getCustomersByIds(ids);
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE,
+            BankMediaTypes.APPLICATION_SMILE_VALUE, BankMediaTypes.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<CustomerDto> searchCustomers(@RequestParam String q,
+                                             @RequestParam(defaultValue = "0") Integer afterId,
+                                             @RequestParam(defaultValue = "20") Integer limit) {
+        return customerService.searchCustomers(q, afterId, limit);
     }
 
     @GetMapping("/{id}")
-    public Mono<CustomerDto> getCustomerById(@PathVariable Integer id) {
-        return customerService.getCustomerById(id);
+    public Mono<ResponseEntity<CustomerDto>> getCustomerById(@PathVariable Integer id,
+                                                             @RequestParam(required = false) String expand,
+                                                             ServerWebExchange exchange) {
+        if (expand == null) {
+            return ETags.conditional(exchange, () -> customerService.getVersion(id),
+                    () -> customerService.getCustomerById(id).map(customer -> ETags.ok(customer, customer.getRowVersion())));
+        }
+        return expandAccounts(expand).then(ETags.taggedOne(exchange, customerService.getCustomerWithAccountsVersion(id),
+                () -> customerService.getCustomerWithAccounts(id)));
     }
 
     @DeleteMapping("/{id}")
@@ -40,4 +70,14 @@ public class CustomerController {
         return customerService.createUser(customerDto);
     }
 
+    @PostMapping("/_bulk")
+    public Flux<BulkItemResultDto<CustomerDto>> importCustomers(@RequestBody List<CustomerDto> customers) {
+        return customerService.importCustomers(customers);
+    }
+
+    private Mono<Void> expandAccounts(String expand) {
+        return "accounts".equals(expand)
+                ? Mono.empty()
+                : Mono.error(new IllegalArgumentException("Unsupported expand value " + expand));
+    }
 }
@@ -0,0 +1,86 @@
+package com.bank.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Weak ETags derived from the {@code row_version} columns, and {@code If-None-Match} handling that answers 304
+ * before the representation is loaded or serialized.
+ * <p>
+ * The tags are weak because JSON and Smile representations of the same version share them.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Object version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Answers 304 when the request carries an {@code If-None-Match} matching the current version, and the full
+     * response otherwise. The version is only looked up if the client sent {@code If-None-Match}.
+     */
+    static <T> Mono<ResponseEntity<T>> conditional(ServerWebExchange exchange, Supplier<Mono<String>> version,
+                                                   Supplier<Mono<ResponseEntity<T>>> response) {
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()) {
+            return response.get();
+        }
+        return version.get()
+                .map(ETags::of)
+                .filter(etag -> matches(exchange, etag))
+                .map(etag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<T>build())
+                .switchIfEmpty(Mono.defer(response));
+    }
+
+    /**
+     * Like {@link #conditional(ServerWebExchange, Supplier, Supplier)} for responses that always carry the
+     * version as their ETag, such as lists.
+     */
+    static <T> Mono<ResponseEntity<T>> tagged(ServerWebExchange exchange, Mono<String> version, Supplier<T> body) {
+        return version
+                .map(ETags::of)
+                .map(etag -> matches(exchange, etag)
+                        ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<T>build()
+                        : ResponseEntity.ok().eTag(etag).body(body.get()));
+    }
+
+    /**
+     * Like {@link #tagged(ServerWebExchange, Mono, Supplier)} for a single item. When there is no version the item
+     * does not exist, and the body is left to report that.
+     */
+    static <T> Mono<ResponseEntity<T>> taggedOne(ServerWebExchange exchange, Mono<String> version,
+                                                 Supplier<Mono<T>> body) {
+        return version
+                .map(ETags::of)
+                .flatMap(etag -> matches(exchange, etag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<T>build())
+                        : body.get().map(item -> ResponseEntity.ok().eTag(etag).body(item)))
+                .switchIfEmpty(Mono.defer(() -> body.get().map(ResponseEntity::ok)));
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        return version == null
+                ? ResponseEntity.ok(body)
+                : ResponseEntity.ok().eTag(of(version)).body(body);
+    }
+
+    private static boolean matches(ServerWebExchange exchange, String etag) {
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : exchange.getRequest().getHeaders().getIfNoneMatch()) {
+            if ("*".equals(candidate) || opaqueTag.equals(stripWeakPrefix(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
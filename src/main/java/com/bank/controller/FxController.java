@@ -0,0 +1,45 @@
+package com.bank.controller;
+
+import com.bank.model.dto.ConversionDto;
+import com.bank.model.types.Currency;
+import com.bank.service.FxRateService;
+import com.bank.service.FxRateSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+@RestController
+@RequestMapping("/v1/fx")
+public class FxController {
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @GetMapping("/rates")
+    public Mono<FxRateSnapshot> getRates() {
+        return Mono.fromSupplier(fxRateService::current);
+    }
+
+    @GetMapping("/convert")
+    public Mono<ConversionDto> convert(@RequestParam BigDecimal amount,
+                                       @RequestParam String from,
+                                       @RequestParam String to) {
+        return Mono.fromCallable(() -> {
+            Currency source = Currency.fromName(from);
+            Currency target = Currency.fromName(to);
+            FxRateSnapshot rates = fxRateService.current();
+            return ConversionDto.builder()
+                    .from(source.name())
+                    .to(target.name())
+                    .amount(amount)
+                    .rate(rates.rate(source, target))
+                    .converted(rates.convert(amount, source, target))
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.datagen;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.datagen")
+public class DataGeneratorProperties {
+
+    private int customers = 10_000;
+
+    private int accountsPerCustomer = 2;
+
+    /**
+     * Customers written per transaction, together with their accounts, as one batched insert per table.
+     */
+    private int chunkSize = 1_000;
+
+    /**
+     * How many chunks are written at the same time, each on its own connection.
+     */
+    private int parallelism = 4;
+
+    private long seed = 42;
+}
@@ -0,0 +1,147 @@
+package com.bank.datagen;
+
+import com.bank.model.domain.Account;
+import com.bank.model.domain.Customer;
+import com.bank.model.types.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Realistic looking customers and accounts that pass the {@code @IbanValidation}, {@code @SsnValidation} and
+ * {@code @PhoneNumberValidation} rules and the size limits of {@link com.bank.model.dto.CustomerDto}.
+ * <p>
+ * Every row is derived from its id and the seed alone, so any range of ids can be generated independently and in
+ * any order, and the same seed always produces the same data. The account number inside an IBAN is the account
+ * id, which keeps generated IBANs unique.
+ */
+public class SyntheticData {
+
+    private static final String[] FIRST_NAMES = {"Ana", "Andrei", "Maria", "Ion", "Elena", "Mihai", "Ioana", "Radu",
+            "Laura", "Dan", "Oliver", "Emma", "James", "Sophie", "Lukas", "Mia", "Jan", "Eva", "Pieter", "Lotte"};
+
+    private static final String[] LAST_NAMES = {"Popescu", "Ionescu", "Dumitru", "Stan", "Gheorghe", "Munteanu",
+            "Smith", "Jones", "Taylor", "Brown", "Muller", "Schmidt", "Weber", "De Vries", "Jansen", "Bakker"};
+
+    private static final String[] STREETS = {"Main Street", "Victoriei", "Unirii", "High Street", "Station Road",
+            "Hauptstrasse", "Kerkstraat", "Mihai Viteazu", "Park Lane", "Mill Road"};
+
+    private static final String[] CITIES = {"Bucuresti", "Cluj-Napoca", "Oradea", "Iasi", "London", "Leeds",
+            "Berlin", "Hamburg", "Amsterdam", "Utrecht"};
+
+    private static final String[] DE_BANK_CODES = {"10070000", "20040000", "37040044", "50010517", "70020270"};
+
+    private static final String[] RO_BANK_CODES = {"BTRL", "BRDE", "RNCB", "INGB", "BACX"};
+
+    private static final String[] NL_BANK_CODES = {"ABNA", "INGB", "RABO", "TRIO", "SNSB"};
+
+    private static final int ISSUE_DAYS = 10 * 365;
+
+    private final long seed;
+
+    private final LocalDate today;
+
+    public SyntheticData(long seed, LocalDate today) {
+        this.seed = seed;
+        this.today = today;
+    }
+
+    public Customer customer(int id) {
+        SplittableRandom random = random(id, 0);
+        String firstName = pick(random, FIRST_NAMES);
+        String lastName = pick(random, LAST_NAMES);
+        String fullName = firstName + " " + lastName;
+        if (fullName.length() > 20) {
+            fullName = firstName.charAt(0) + ". " + lastName;
+        }
+        return Customer.builder()
+                .id(id)
+                .fullName(fullName)
+                .address((1 + random.nextInt(250)) + " " + pick(random, STREETS) + ", " + pick(random, CITIES))
+                .phoneNumber(phoneNumber(random))
+                .ssn(ssn(random))
+                .build();
+    }
+
+    public Account account(int id, int customerId) {
+        SplittableRandom random = random(id, 1);
+        return Account.builder()
+                .id(id)
+                .iban(iban(random, id))
+                .currency(Currency.values()[random.nextInt(Currency.values().length)])
+                .amount(BigDecimal.valueOf(random.nextLong(10_000_000L), 2))
+                .customerId(customerId)
+                .issuedAt(today.minusDays(random.nextInt(ISSUE_DAYS)))
+                .build();
+    }
+
+    /**
+     * Prepends the country code and the ISO 13616 check digits to {@code bban}.
+     */
+    public static String iban(String countryCode, String bban) {
+        String rearranged = bban + countryCode + "00";
+        int remainder = 0;
+        for (int i = 0; i < rearranged.length(); i++) {
+            int value = Character.getNumericValue(rearranged.charAt(i));
+            remainder = (value > 9 ? remainder * 100 + value : remainder * 10 + value) % 97;
+        }
+        int checkDigits = 98 - remainder;
+        return countryCode + (checkDigits < 10 ? "0" : "") + checkDigits + bban;
+    }
+
+    private static String iban(SplittableRandom random, int id) {
+        String iban;
+        switch (random.nextInt(3)) {
+            case 0:
+                iban = iban("DE", pick(random, DE_BANK_CODES) + pad(id, 10));
+                break;
+            case 1:
+                iban = iban("RO", pick(random, RO_BANK_CODES) + pad(id, 16));
+                break;
+            default:
+                iban = iban("NL", pick(random, NL_BANK_CODES) + pad(id, 10));
+                break;
+        }
+        // about half of the IBANs come in the grouped print format
+        return random.nextBoolean() ? iban : iban.replaceAll("(.{4})(?!$)", "$1 ");
+    }
+
+    private static String phoneNumber(SplittableRandom random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return String.format("+40 7%02d %03d %03d", random.nextInt(100), random.nextInt(1000), random.nextInt(1000));
+            case 1:
+                return String.format("(%03d) %03d-%04d", 200 + random.nextInt(800), random.nextInt(1000), random.nextInt(10000));
+            case 2:
+                return String.format("+44 %03d %02d %02d %02d", 100 + random.nextInt(900), random.nextInt(100),
+                        random.nextInt(100), random.nextInt(100));
+            default:
+                return String.format("%03d-%03d-%04d", 200 + random.nextInt(800), random.nextInt(1000), random.nextInt(10000));
+        }
+    }
+
+    private static String ssn(SplittableRandom random) {
+        int area = 1 + random.nextInt(898);
+        if (area >= 666) {
+            area++;
+        }
+        return String.format("%03d-%02d-%04d", area, 1 + random.nextInt(99), 1 + random.nextInt(9999));
+    }
+
+    private SplittableRandom random(int id, int stream) {
+        return new SplittableRandom(seed * 31 + stream + ((long) id << 1));
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String pad(int value, int length) {
+        StringBuilder digits = new StringBuilder(Integer.toString(value));
+        while (digits.length() < length) {
+            digits.insert(0, '0');
+        }
+        return digits.toString();
+    }
+}
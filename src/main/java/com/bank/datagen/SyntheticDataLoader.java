@@ -0,0 +1,183 @@
+package com.bank.datagen;
+
+import com.bank.model.domain.Account;
+import com.bank.model.domain.Customer;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.service.IbanLookupFilter;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the database with {@code bank.datagen.customers} generated customers and
+ * {@code bank.datagen.accounts-per-customer} accounts each, once the application is ready, e.g.
+ * {@code ./gradlew bootRun --args='--bank.datagen.enabled=true --bank.datagen.customers=1000000'}.
+ * <p>
+ * New rows get explicit ids after the highest ids in use, so customers and their accounts can be written together
+ * without reading generated keys back. Chunks of customers are written as one batched insert per table in their
+ * own transaction, with up to {@code parallelism} chunks in flight on separate connections. Afterwards the id
+ * generators are moved past the new rows. Meant for an otherwise idle database: rows inserted by someone else
+ * while the load runs may take the ids it is about to use.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "bank.datagen", name = "enabled", havingValue = "true")
+public class SyntheticDataLoader {
+
+    private static final String INSERT_CUSTOMER = "insert into customer (id, fullName, address, phone_number, ssn)" +
+            " values ($1, $2, $3, $4, $5)";
+
+    private static final String INSERT_ACCOUNT = "insert into accounts (id, iban, currency, amount, customer_id, issued_at)" +
+            " values ($1, $2, $3, $4, $5, $6)";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private DataGeneratorProperties properties;
+
+    @Autowired(required = false)
+    private IbanLookupFilter ibanLookupFilter;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        long started = System.nanoTime();
+        Long customers = load(new SyntheticData(properties.getSeed(), LocalDate.now())).block();
+        log.info("Generated {} customers with {} accounts each in {} ms", customers, properties.getAccountsPerCustomer(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @return the number of customers written
+     */
+    public Mono<Long> load(SyntheticData data) {
+        if (shards != null) {
+            return Mono.error(new IllegalStateException("Generating data is not supported with sharded accounts"));
+        }
+        int chunkSize = properties.getChunkSize();
+        int chunks = (properties.getCustomers() + chunkSize - 1) / chunkSize;
+        return lastId("customer").zipWith(lastId("accounts"))
+                .flatMap(lastIds -> Flux.range(0, chunks)
+                        .map(chunk -> chunk(data, lastIds.getT1(), lastIds.getT2(), chunk * chunkSize,
+                                Math.min(properties.getCustomers(), (chunk + 1) * chunkSize)))
+                        .flatMap(this::insert, properties.getParallelism())
+                        .reduce(0L, Long::sum)
+                        .flatMap(written -> restartIds("customer", lastIds.getT1() + properties.getCustomers())
+                                .then(restartIds("accounts", lastIds.getT2()
+                                        + (long) properties.getCustomers() * properties.getAccountsPerCustomer()))
+                                .thenReturn(written)));
+    }
+
+    private Chunk chunk(SyntheticData data, int lastCustomerId, int lastAccountId, int from, int to) {
+        int perCustomer = properties.getAccountsPerCustomer();
+        Chunk chunk = new Chunk();
+        for (int i = from; i < to; i++) {
+            Customer customer = data.customer(lastCustomerId + 1 + i);
+            chunk.customers.add(customer);
+            for (int j = 0; j < perCustomer; j++) {
+                chunk.accounts.add(data.account(lastAccountId + 1 + i * perCustomer + j, customer.getId()));
+            }
+        }
+        return chunk;
+    }
+
+    private Mono<Long> insert(Chunk chunk) {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.beginTransaction())
+                        .then(Mono.defer(() -> execute(customers(connection, chunk.customers))))
+                        .then(Mono.defer(() -> chunk.accounts.isEmpty() ? Mono.empty() : execute(accounts(connection, chunk.accounts))))
+                        .then(Mono.defer(() -> Mono.from(connection.commitTransaction())))
+                        .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e)))
+                        .then(Mono.fromRunnable(() -> remember(chunk.accounts)))
+                        .thenReturn((long) chunk.customers.size()),
+                Connection::close);
+    }
+
+    private Statement customers(Connection connection, List<Customer> customers) {
+        Statement statement = connection.createStatement(INSERT_CUSTOMER);
+        for (int i = 0; i < customers.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            Customer customer = customers.get(i);
+            statement.bind(0, customer.getId())
+                    .bind(1, customer.getFullName())
+                    .bind(2, customer.getAddress())
+                    .bind(3, customer.getPhoneNumber())
+                    .bind(4, customer.getSsn());
+        }
+        return statement;
+    }
+
+    private Statement accounts(Connection connection, List<Account> accounts) {
+        Statement statement = connection.createStatement(INSERT_ACCOUNT);
+        for (int i = 0; i < accounts.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            Account account = accounts.get(i);
+            statement.bind(0, account.getId())
+                    .bind(1, account.getIban())
+                    .bind(2, account.getCurrency().getCode())
+                    .bind(3, account.getAmount())
+                    .bind(4, account.getCustomerId())
+                    .bind(5, account.getIssuedAt());
+        }
+        return statement;
+    }
+
+    private static Mono<Long> execute(Statement statement) {
+        return Flux.from(statement.execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, (total, updated) -> total + updated);
+    }
+
+    private void remember(List<Account> accounts) {
+        if (ibanLookupFilter != null) {
+            accounts.forEach(account -> ibanLookupFilter.put(account.getIban()));
+        }
+    }
+
+    private Mono<Integer> lastId(String table) {
+        return databaseClient.execute("select coalesce(max(id), 0) as last_id from " + table)
+                .map((row, metadata) -> ((Number) row.get("last_id")).intValue())
+                .one();
+    }
+
+    private Mono<Void> restartIds(String table, long lastId) {
+        String sql = "postgresql".equalsIgnoreCase(connectionFactory.getMetadata().getName())
+                ? "select setval(pg_get_serial_sequence('" + table + "', 'id'), " + Math.max(1, lastId) + ")"
+                : "alter table " + table + " alter column id restart with " + (lastId + 1);
+        return databaseClient.execute(sql)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private static final class Chunk {
+        private final List<Customer> customers = new ArrayList<>();
+        private final List<Account> accounts = new ArrayList<>();
+    }
+}
@@ -4,4 +4,8 @@ public class AccountNotFoundException extends RuntimeException {
     public AccountNotFoundException(Integer id) {
         super("Account with id " + id + " was not found!");
     }
+
+    public AccountNotFoundException(String iban) {
+        super("Account with iban " + iban + " was not found!");
+    }
 }
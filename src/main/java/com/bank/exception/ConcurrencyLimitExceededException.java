@@ -0,0 +1,7 @@
+package com.bank.exception;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    public ConcurrencyLimitExceededException() {
+        super("Too many concurrent database operations, try again later.");
+    }
+}
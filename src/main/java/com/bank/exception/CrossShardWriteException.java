@@ -0,0 +1,9 @@
+package com.bank.exception;
+
+public class CrossShardWriteException extends RuntimeException {
+
+    public CrossShardWriteException(Integer accountId, Integer customerId) {
+        super("Account with id " + accountId + " can not be moved to customer with id " + customerId
+                + ", which is stored on another shard!");
+    }
+}
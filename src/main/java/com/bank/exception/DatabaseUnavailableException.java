@@ -0,0 +1,7 @@
+package com.bank.exception;
+
+public class DatabaseUnavailableException extends RuntimeException {
+    public DatabaseUnavailableException() {
+        super("The database is currently unavailable, try again later.");
+    }
+}
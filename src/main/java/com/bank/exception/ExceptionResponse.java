@@ -1,11 +1,14 @@
 package com.bank.exception;
 
+import com.bank.codec.ExceptionResponseSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Builder;
 import lombok.Getter;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+@JsonSerialize(using = ExceptionResponseSerializer.class)
 @Builder
 @Getter
 public class ExceptionResponse {
@@ -1,17 +1,20 @@
 package com.bank.exception;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @ControllerAdvice
 @Slf4j
@@ -22,10 +25,12 @@ public class GlobalExceptionHandler {
         log.error("Exception caught : {}", ex.getMessage(), ex);
 
 
-        List<String> errors = ex.getBindingResult().getAllErrors().stream()
-                .map(DefaultMessageSourceResolvable::getDefaultMessage)
-                .sorted()
-                .collect(Collectors.toList());
+        List<ObjectError> allErrors = ex.getBindingResult().getAllErrors();
+        List<String> errors = new ArrayList<>(allErrors.size());
+        for (ObjectError error : allErrors) {
+            errors.add(error.getDefaultMessage());
+        }
+        Collections.sort(errors);
         ExceptionResponse response = ExceptionResponse.builder()
                 .errors(errors)
                 .dateTime(LocalDateTime.now())
@@ -35,6 +40,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler({ConcurrencyLimitExceededException.class, DatabaseUnavailableException.class,
+            DataAccessResourceFailureException.class, QueryTimeoutException.class})
+    public ResponseEntity<ExceptionResponse> handleUnavailableDatabase(Exception ex) {
+        log.error("Database unavailable : {}", ex.getMessage());
+        ExceptionResponse responseError = ExceptionResponse
+                .builder()
+                .errors(Collections.singletonList(NestedExceptionUtils.getMostSpecificCause(ex).getMessage()))
+                .dateTime(LocalDateTime.now()).build();
+        return new ResponseEntity<>(responseError, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Throwable.class)
     public ResponseEntity<ExceptionResponse> handleError(Throwable ex) {
         log.error("Error : {}", ex.getMessage());
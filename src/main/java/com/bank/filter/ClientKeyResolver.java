@@ -0,0 +1,89 @@
+package com.bank.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which rate limit bucket a request counts against: the authenticated principal, then, for requests
+ * coming from one of the {@code bank.rate-limit.trusted-proxies}, the partner key header the proxy sets or the
+ * client address it appended to {@code X-Forwarded-For}, and otherwise the remote address. Headers are only
+ * believed from trusted proxies, since anyone else could send a fresh value with every request.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.rate-limit", name = "enabled", havingValue = "true")
+public class ClientKeyResolver {
+
+    static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final Set<String> trustedProxies;
+    private final String partnerKeyHeader;
+
+    /**
+     * @param trustedProxies   addresses of the load balancers and proxies in front of the service
+     * @param partnerKeyHeader header in which a trusted proxy passes the partner a request belongs to, empty for none
+     */
+    public ClientKeyResolver(@Value("${bank.rate-limit.trusted-proxies:}") String[] trustedProxies,
+                             @Value("${bank.rate-limit.partner-key-header:}") String partnerKeyHeader) {
+        this.trustedProxies = new HashSet<>();
+        for (String proxy : trustedProxies) {
+            if (StringUtils.hasText(proxy)) {
+                this.trustedProxies.add(proxy.trim());
+            }
+        }
+        this.partnerKeyHeader = partnerKeyHeader;
+    }
+
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .map(principal -> "principal:" + principal.getName())
+                .defaultIfEmpty(fromRequest(exchange.getRequest()));
+    }
+
+    private String fromRequest(ServerHttpRequest request) {
+        String remoteAddress = remoteAddress(request);
+        if (remoteAddress == null || !trustedProxies.contains(remoteAddress)) {
+            return "address:" + (remoteAddress == null ? "unknown" : remoteAddress);
+        }
+        if (StringUtils.hasText(partnerKeyHeader)) {
+            String partner = request.getHeaders().getFirst(partnerKeyHeader);
+            if (StringUtils.hasText(partner)) {
+                return "partner:" + partner.trim();
+            }
+        }
+        // the nearest address not added by a trusted proxy is the client; anything left of it may be forged
+        List<String> forwarded = forwardedFor(request);
+        for (int i = forwarded.size() - 1; i >= 0; i--) {
+            if (!trustedProxies.contains(forwarded.get(i))) {
+                return "address:" + forwarded.get(i);
+            }
+        }
+        return "address:" + remoteAddress;
+    }
+
+    private static List<String> forwardedFor(ServerHttpRequest request) {
+        List<String> values = request.getHeaders().get(FORWARDED_FOR);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        String[] addresses = StringUtils.tokenizeToStringArray(String.join(",", values), ",");
+        return Arrays.asList(addresses);
+    }
+
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress == null || remoteAddress.getAddress() == null ? null
+                : remoteAddress.getAddress().getHostAddress();
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sheds load on the {@code /v1} routes before any database work starts. Every client, as told apart by the
+ * {@link ClientKeyResolver}, gets its own token bucket and is answered with 429 once it is empty. The buckets are
+ * spread over {@value #STRIPES} maps by client key, each with its own lock and holding its share of the
+ * {@code bank.rate-limit.max-tracked-clients} most recently seen clients, so requests of different clients rarely
+ * wait for each other; a client evicted from its map starts over with a full bucket. On top of that a global
+ * limit on in-flight requests answers 503 when the service is saturated.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "bank.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitingWebFilter implements WebFilter {
+
+    private static final int STRIPES = 32;
+
+    private final Map<String, TokenBucket>[] buckets;
+    private final ClientKeyResolver clientKeys;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final double burst;
+    private final double requestsPerSecond;
+    private final int maxConcurrentRequests;
+
+    private final Counter rateLimitedRequests;
+    private final Counter overloadedRequests;
+
+    public RateLimitingWebFilter(@Value("${bank.rate-limit.requests-per-second:50}") double requestsPerSecond,
+                                 @Value("${bank.rate-limit.burst:100}") double burst,
+                                 @Value("${bank.rate-limit.max-concurrent-requests:256}") int maxConcurrentRequests,
+                                 @Value("${bank.rate-limit.max-tracked-clients:10000}") int maxTrackedClients,
+                                 ClientKeyResolver clientKeys,
+                                 MeterRegistry meterRegistry) {
+        this.buckets = stripes(maxTrackedClients);
+        this.clientKeys = clientKeys;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.rateLimitedRequests = Counter.builder("bank.requests.rejected")
+                .tag("reason", "rate-limit")
+                .register(meterRegistry);
+        this.overloadedRequests = Counter.builder("bank.requests.rejected")
+                .tag("reason", "concurrency-limit")
+                .register(meterRegistry);
+        meterRegistry.gauge("bank.requests.in-flight", inFlight);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().value().startsWith("/v1/")) {
+            return chain.filter(exchange);
+        }
+        return clientKeys.resolve(exchange)
+                .flatMap(client -> admit(client, exchange, chain));
+    }
+
+    /**
+     * @return the number of clients that currently have a bucket
+     */
+    public int getTrackedClients() {
+        int tracked = 0;
+        for (Map<String, TokenBucket> stripe : buckets) {
+            synchronized (stripe) {
+                tracked += stripe.size();
+            }
+        }
+        return tracked;
+    }
+
+    private Mono<Void> admit(String client, ServerWebExchange exchange, WebFilterChain chain) {
+        if (!bucketFor(client).tryConsume(System.nanoTime())) {
+            rateLimitedRequests.increment();
+            return reject(exchange, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        if (inFlight.incrementAndGet() > maxConcurrentRequests) {
+            inFlight.decrementAndGet();
+            overloadedRequests.increment();
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    private TokenBucket bucketFor(String client) {
+        Map<String, TokenBucket> stripe = buckets[(client.hashCode() & Integer.MAX_VALUE) % buckets.length];
+        synchronized (stripe) {
+            return stripe.computeIfAbsent(client, key -> new TokenBucket(burst, requestsPerSecond, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Access-ordered maps, so each evicts its least recently seen client once it holds its share of
+     * {@code maxTrackedClients}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, TokenBucket>[] stripes(int maxTrackedClients) {
+        int count = Math.max(1, Math.min(STRIPES, maxTrackedClients));
+        int capacity = Math.max(1, maxTrackedClients / count);
+        Map<String, TokenBucket>[] stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+        return stripes;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+        log.debug("Rejected {} {} with {}", exchange.getRequest().getMethod(), exchange.getRequest().getPath(), status);
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return exchange.getResponse().setComplete();
+    }
+}
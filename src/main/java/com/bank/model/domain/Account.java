@@ -1,11 +1,13 @@
 package com.bank.model.domain;
 
 
+import com.bank.model.types.Currency;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -26,7 +28,7 @@ public class Account {
     @Column("iban")
     private String iban;
 
-    private String currency;
+    private Currency currency;
 
     private BigDecimal amount;
 
@@ -35,4 +37,16 @@ public class Account {
 
     @Column("issued_at")
     private LocalDate issuedAt;
+
+    @Column("row_version")
+    @ReadOnlyProperty
+    private Long rowVersion;
+
+    /**
+     * Number of stripe rows holding part of the balance, 0 for a plain account. Only changed by
+     * {@link com.bank.striping.AccountStripes}.
+     */
+    @Column("stripes")
+    @ReadOnlyProperty
+    private Integer stripes;
 }
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -29,4 +30,8 @@ public class Customer {
     private String phoneNumber;
 
     private String ssn;
+
+    @Column("row_version")
+    @ReadOnlyProperty
+    private Long rowVersion;
 }
@@ -1,10 +1,14 @@
 package com.bank.model.dto;
 
+import com.bank.codec.AccountDtoSerializer;
 import com.bank.validation.currency.CurrencyValidation;
 import com.bank.validation.iban.IbanValidation;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.DecimalMin;
@@ -12,6 +16,7 @@ import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+@JsonSerialize(using = AccountDtoSerializer.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -33,4 +38,8 @@ public class AccountDto {
 
     private Integer customerId;
     private LocalDate issuedAt;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long rowVersion;
 }
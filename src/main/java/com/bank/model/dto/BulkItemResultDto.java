@@ -0,0 +1,39 @@
+package com.bank.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class BulkItemResultDto<T> {
+
+    public static final String CREATED = "CREATED";
+    public static final String INVALID = "INVALID";
+    public static final String FAILED = "FAILED";
+
+    private Integer index;
+    private String status;
+    private T item;
+    private List<String> errors;
+
+    public static <T> BulkItemResultDto<T> created(int index, T item) {
+        return new BulkItemResultDto<>(index, CREATED, item, null);
+    }
+
+    public static <T> BulkItemResultDto<T> invalid(int index, List<String> errors) {
+        return new BulkItemResultDto<>(index, INVALID, null, errors);
+    }
+
+    public static <T> BulkItemResultDto<T> failed(int index, String error) {
+        return new BulkItemResultDto<>(index, FAILED, null, Collections.singletonList(error));
+    }
+}
@@ -0,0 +1,21 @@
+package com.bank.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionDto {
+
+    private String from;
+    private String to;
+    private BigDecimal amount;
+    private BigDecimal rate;
+    private BigDecimal converted;
+}
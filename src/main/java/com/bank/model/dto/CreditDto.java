@@ -0,0 +1,21 @@
+package com.bank.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditDto {
+
+    @NotNull(message = "Credit amount can not be null")
+    @DecimalMin(value = "0", inclusive = false, message = "Credit amount must be positive")
+    private BigDecimal amount;
+}
@@ -0,0 +1,22 @@
+package com.bank.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerBalanceDto {
+
+    private Integer customerId;
+    private String currency;
+    private BigDecimal amount;
+    private Integer accounts;
+    private Instant ratesLoadedAt;
+}
@@ -1,15 +1,22 @@
 package com.bank.model.dto;
 
+import com.bank.codec.CustomerDtoSerializer;
 import com.bank.validation.phonenumber.PhoneNumberValidation;
 import com.bank.validation.ssn.SsnValidation;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.util.List;
 
+@JsonSerialize(using = CustomerDtoSerializer.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -33,4 +40,11 @@ public class CustomerDto {
     @SsnValidation()
     @NotNull(message = "Ssn can not be null")
     private String ssn;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<AccountDto> accounts;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long rowVersion;
 }
@@ -1,5 +1,33 @@
 package com.bank.model.types;
 
 public enum Currency {
-    RON, EUR, DOLLAR
+    RON(1), EUR(2), DOLLAR(3);
+
+    private final short code;
+
+    Currency(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static Currency fromCode(short code) {
+        for (Currency currency : values()) {
+            if (currency.code == code) {
+                return currency;
+            }
+        }
+        throw new IllegalArgumentException("Unknown currency code " + code);
+    }
+
+    public static Currency fromName(String name) {
+        for (Currency currency : values()) {
+            if (currency.name().equals(name)) {
+                return currency;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported currency " + name);
+    }
 }
@@ -1,7 +1,16 @@
 package com.bank.repository;
 
 import com.bank.model.domain.Customer;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 
 public interface CustomerRepository extends ReactiveCrudRepository<Customer, Integer> {
+
+    @Query("select * from customer where id > :afterId" +
+            " and (fullName ilike :prefix or address ilike :infix or phone_number like :prefix or ssn like :prefix)" +
+            " order by id limit :limit")
+    Flux<Customer> search(@Param("prefix") String prefix, @Param("infix") String infix,
+                          @Param("afterId") Integer afterId, @Param("limit") Integer limit);
 }
@@ -0,0 +1,79 @@
+package com.bank.repository.jdbc;
+
+import com.bank.model.domain.Account;
+import com.bank.model.types.Currency;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@ConditionalOnProperty(prefix = "bank.persistence", name = "mode", havingValue = "jdbc")
+public class JdbcAccountReader {
+
+    private static final String SELECT_ACCOUNTS = "select id, iban, currency, amount, customer_id, issued_at, row_version, stripes" +
+            " from accounts";
+
+    private static final RowMapper<Account> ACCOUNT_MAPPER = (rs, rowNum) -> Account.builder()
+            .id(rs.getInt("id"))
+            .iban(rs.getString("iban"))
+            .currency(rs.getObject("currency") == null ? null : Currency.fromCode(rs.getShort("currency")))
+            .amount(rs.getBigDecimal("amount"))
+            .customerId(rs.getObject("customer_id", Integer.class))
+            .issuedAt(rs.getObject("issued_at", LocalDate.class))
+            .rowVersion(rs.getLong("row_version"))
+            .stripes(rs.getInt("stripes"))
+            .build();
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JdbcCalls jdbcCalls;
+
+    @Value("${bank.persistence.jdbc.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * Reads the accounts in id-ordered keyset pages of {@code bank.persistence.jdbc.page-size}, the next page only
+     * once the previous one is consumed, so only one page is ever on the heap.
+     */
+    public Flux<Account> findAll() {
+        return page(0)
+                .expand(page -> page.size() == pageSize ? page(page.get(page.size() - 1).getId()) : Mono.empty())
+                .concatMapIterable(page -> page, 1);
+    }
+
+    private Mono<List<Account>> page(int afterId) {
+        return jdbcCalls.call(() -> jdbcTemplate.query(SELECT_ACCOUNTS + " where id > :afterId order by id limit :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", pageSize), ACCOUNT_MAPPER));
+    }
+
+    public Mono<Account> findById(Integer id) {
+        return jdbcCalls.call(() -> first(jdbcTemplate.query(SELECT_ACCOUNTS + " where id = :id",
+                new MapSqlParameterSource("id", id), ACCOUNT_MAPPER)));
+    }
+
+    public Flux<Account> findAllById(List<Integer> ids) {
+        return jdbcCalls.call(() -> jdbcTemplate.query(SELECT_ACCOUNTS + " where id in (:ids)",
+                new MapSqlParameterSource("ids", ids), ACCOUNT_MAPPER))
+                .flatMapIterable(accounts -> accounts);
+    }
+
+    public Mono<Account> findByNormalizedIban(String normalizedIban) {
+        return jdbcCalls.call(() -> first(jdbcTemplate.query(SELECT_ACCOUNTS + " where iban_normalized = :iban",
+                new MapSqlParameterSource("iban", normalizedIban), ACCOUNT_MAPPER)));
+    }
+
+    static <T> T first(List<T> rows) {
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
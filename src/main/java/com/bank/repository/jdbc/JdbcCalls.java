@@ -0,0 +1,38 @@
+package com.bank.repository.jdbc;
+
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs blocking JDBC calls on the JDBC scheduler. With {@code bank.db-concurrency.enabled} every call first takes
+ * a permit from the same {@link AdaptiveConcurrencyLimiter} as the R2DBC connections and holds it until the call
+ * is over, so JDBC reads count against the database concurrency limit and their latency adjusts it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.persistence", name = "mode", havingValue = "jdbc")
+public class JdbcCalls {
+
+    @Autowired
+    private Scheduler jdbcScheduler;
+
+    @Autowired(required = false)
+    private AdaptiveConcurrencyLimiter limiter;
+
+    public <T> Mono<T> call(Callable<T> query) {
+        Mono<T> call = Mono.fromCallable(query).subscribeOn(jdbcScheduler);
+        if (limiter == null) {
+            return call;
+        }
+        return Mono.usingWhen(limiter.acquire(),
+                permit -> call,
+                permit -> Mono.fromRunnable(() -> permit.release(true)),
+                (permit, e) -> Mono.fromRunnable(() -> permit.release(false)),
+                permit -> Mono.fromRunnable(() -> permit.release(false)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.repository.jdbc;
+
+import com.bank.model.domain.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Repository
+@ConditionalOnProperty(prefix = "bank.persistence", name = "mode", havingValue = "jdbc")
+public class JdbcCustomerReader {
+
+    private static final String SELECT_CUSTOMERS = "select id, fullName, address, phone_number, ssn, row_version" +
+            " from customer";
+
+    private static final RowMapper<Customer> CUSTOMER_MAPPER = (rs, rowNum) -> Customer.builder()
+            .id(rs.getInt("id"))
+            .fullName(rs.getString("fullName"))
+            .address(rs.getString("address"))
+            .phoneNumber(rs.getString("phone_number"))
+            .ssn(rs.getString("ssn"))
+            .rowVersion(rs.getLong("row_version"))
+            .build();
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JdbcCalls jdbcCalls;
+
+    @Value("${bank.persistence.jdbc.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * Reads the customers in id-ordered keyset pages, like {@link JdbcAccountReader#findAll()}.
+     */
+    public Flux<Customer> findAll() {
+        return page(0)
+                .expand(page -> page.size() == pageSize ? page(page.get(page.size() - 1).getId()) : Mono.empty())
+                .concatMapIterable(page -> page, 1);
+    }
+
+    private Mono<List<Customer>> page(int afterId) {
+        return jdbcCalls.call(() -> jdbcTemplate.query(SELECT_CUSTOMERS + " where id > :afterId order by id limit :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", pageSize), CUSTOMER_MAPPER));
+    }
+
+    public Mono<Customer> findById(Integer id) {
+        return jdbcCalls.call(() -> JdbcAccountReader.first(jdbcTemplate.query(SELECT_CUSTOMERS + " where id = :id",
+                new MapSqlParameterSource("id", id), CUSTOMER_MAPPER)));
+    }
+
+    public Flux<Customer> findAllById(List<Integer> ids) {
+        return jdbcCalls.call(() -> jdbcTemplate.query(SELECT_CUSTOMERS + " where id in (:ids)",
+                new MapSqlParameterSource("ids", ids), CUSTOMER_MAPPER))
+                .flatMapIterable(customers -> customers);
+    }
+}
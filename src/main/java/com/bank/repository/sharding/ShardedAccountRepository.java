@@ -0,0 +1,240 @@
+package com.bank.repository.sharding;
+
+import com.bank.config.SchemaMigrationPopulator;
+import com.bank.config.converter.CurrencyReadingConverter;
+import com.bank.config.converter.CurrencyWritingConverter;
+import com.bank.exception.CrossShardWriteException;
+import com.bank.model.domain.Account;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.connectionfactory.init.CompositeDatabasePopulator;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulator;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulatorUtils;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.r2dbc.core.DefaultReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.r2dbc.query.Criteria.where;
+
+/**
+ * Stores accounts across several databases, routed by customer id, so that all accounts of a customer live on the
+ * same shard. Customers themselves stay in the main database.
+ * <p>
+ * Account ids are drawn from a sequence on each shard that starts at the shard index plus one and steps by the
+ * number of shards, so ids are unique across shards and an id alone tells which shard holds the account. Reads
+ * of all accounts stream every shard in id-ordered keyset pages and merge them back into one id-ordered stream.
+ * An update that would move an account to a customer on another shard is rejected with
+ * {@link CrossShardWriteException} instead of being split over two databases.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "bank.sharding", name = "enabled", havingValue = "true")
+public class ShardedAccountRepository {
+
+    private static final String ID_SEQUENCE = "account_shard_id_seq";
+
+    private final List<Shard> shards = new ArrayList<>();
+
+    private final int pageSize;
+
+    private final boolean cleanOnStartup;
+
+    public ShardedAccountRepository(ShardingProperties properties,
+                                    @Value("${bank.database.clean-on-startup:false}") boolean cleanOnStartup) {
+        if (properties.getUrls().isEmpty()) {
+            throw new IllegalStateException("Sharding is enabled but no bank.sharding.urls are configured");
+        }
+        for (String url : properties.getUrls()) {
+            shards.add(new Shard(shards.size(), ConnectionFactories.get(url)));
+        }
+        this.pageSize = properties.getPageSize();
+        this.cleanOnStartup = cleanOnStartup;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Flux.fromIterable(shards)
+                .concatMap(shard -> DatabasePopulatorUtils.execute(migrations(shard), shard.connectionFactory)
+                        .then(shard.databaseClient.execute("create sequence if not exists " + ID_SEQUENCE
+                                + " start with " + (shard.index + 1) + " increment by " + shards.size())
+                                .fetch()
+                                .rowsUpdated()))
+                .blockLast();
+        log.info("Migrated {} account shards", shards.size());
+    }
+
+    private DatabasePopulator migrations(Shard shard) {
+        String vendor = shard.connectionFactory.getMetadata().getName();
+        return new CompositeDatabasePopulator(new SchemaMigrationPopulator(vendor, cleanOnStartup),
+                SchemaMigrationPopulator.forFolder(vendor, "shard"));
+    }
+
+    public Flux<Account> findAll() {
+        List<Publisher<Account>> streams = new ArrayList<>();
+        for (Shard shard : shards) {
+            streams.add(scan(shard));
+        }
+        return merge(Comparator.comparing(Account::getId), streams);
+    }
+
+    public Mono<Account> findById(Integer id) {
+        return forAccount(id).template.selectOne(Query.query(where("id").is(id)), Account.class);
+    }
+
+    public Flux<Account> findAllById(List<Integer> ids) {
+        Map<Shard, List<Integer>> idsByShard = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            idsByShard.computeIfAbsent(forAccount(id), shard -> new ArrayList<>()).add(id);
+        }
+        return Flux.fromIterable(idsByShard.entrySet())
+                .flatMap(entry -> entry.getKey().template.select(Query.query(where("id").in(entry.getValue())), Account.class));
+    }
+
+    public Flux<Account> findByCustomerId(Integer customerId) {
+        return forCustomer(customerId).template.select(Query.query(where("customer_id").is(customerId)), Account.class);
+    }
+
+    /**
+     * Accounts issued on or after {@code from} and before {@code until}, merged from all shards by issue date and id.
+     */
+    public Flux<Account> findIssuedBetween(LocalDate from, LocalDate until) {
+        Query range = Query.query(where("issued_at").greaterThanOrEquals(from).and("issued_at").lessThan(until))
+                .sort(Sort.by("issued_at", "id"));
+        List<Publisher<Account>> streams = new ArrayList<>();
+        for (Shard shard : shards) {
+            streams.add(shard.template.select(range, Account.class));
+        }
+        return merge(Comparator.comparing(Account::getIssuedAt).thenComparing(Account::getId), streams);
+    }
+
+    public Mono<Account> findByNormalizedIban(String normalizedIban) {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.template.selectOne(Query.query(where("iban_normalized").is(normalizedIban)), Account.class))
+                .next();
+    }
+
+    /**
+     * Stores a new account on the shard of its customer, under a fresh id from that shard.
+     */
+    public Mono<Account> insert(Account account) {
+        Shard shard = forCustomer(account.getCustomerId());
+        return shard.databaseClient.execute("select nextval('" + ID_SEQUENCE + "') as id")
+                .map((row, metadata) -> ((Number) row.get("id")).intValue())
+                .one()
+                .flatMap(id -> {
+                    account.setId(id);
+                    return shard.template.insert(Account.class).using(account);
+                });
+    }
+
+    public Mono<Account> update(Account account) {
+        Shard shard = forAccount(account.getId());
+        if (account.getCustomerId() != null && forCustomer(account.getCustomerId()) != shard) {
+            return Mono.error(new CrossShardWriteException(account.getId(), account.getCustomerId()));
+        }
+        return shard.template.update(account);
+    }
+
+    public Mono<Integer> deleteById(Integer id) {
+        return forAccount(id).template.delete(Query.query(where("id").is(id)), Account.class);
+    }
+
+    public DatabaseClient databaseClientForAccount(Integer id) {
+        return forAccount(id).databaseClient;
+    }
+
+    public DatabaseClient databaseClientForCustomer(Integer customerId) {
+        return forCustomer(customerId).databaseClient;
+    }
+
+    public List<DatabaseClient> databaseClients() {
+        List<DatabaseClient> clients = new ArrayList<>();
+        for (Shard shard : shards) {
+            clients.add(shard.databaseClient);
+        }
+        return clients;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @return the index of the shard holding the accounts of {@code customerId}
+     */
+    public int shardOfCustomer(Integer customerId) {
+        return forCustomer(customerId).index;
+    }
+
+    private Shard forCustomer(Integer customerId) {
+        if (customerId == null) {
+            throw new IllegalArgumentException("An account needs a customer id to be stored on a shard");
+        }
+        return shards.get(Math.floorMod(customerId, shards.size()));
+    }
+
+    private Shard forAccount(Integer id) {
+        if (id == null) {
+            throw new IllegalArgumentException("An account id is required");
+        }
+        return shards.get(Math.floorMod(id - 1, shards.size()));
+    }
+
+    private Flux<Account> scan(Shard shard) {
+        return page(shard, 0)
+                .expand(page -> page.size() == pageSize ? page(shard, page.get(page.size() - 1).getId()) : Mono.empty())
+                .flatMapIterable(page -> page);
+    }
+
+    private Mono<List<Account>> page(Shard shard, int afterId) {
+        return shard.template.select(Query.query(where("id").greaterThan(afterId))
+                .sort(Sort.by("id"))
+                .limit(pageSize), Account.class)
+                .collectList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Flux<Account> merge(Comparator<Account> order, List<Publisher<Account>> streams) {
+        return Flux.mergeOrdered(order, streams.toArray(new Publisher[0]));
+    }
+
+    private static final class Shard {
+        private final int index;
+        private final ConnectionFactory connectionFactory;
+        private final DatabaseClient databaseClient;
+        private final R2dbcEntityTemplate template;
+
+        private Shard(int index, ConnectionFactory connectionFactory) {
+            ReactiveDataAccessStrategy dataAccessStrategy = new DefaultReactiveDataAccessStrategy(
+                    DialectResolver.getDialect(connectionFactory),
+                    Arrays.asList(new CurrencyReadingConverter(), new CurrencyWritingConverter()));
+            this.index = index;
+            this.connectionFactory = connectionFactory;
+            this.databaseClient = DatabaseClient.builder()
+                    .connectionFactory(connectionFactory)
+                    .dataAccessStrategy(dataAccessStrategy)
+                    .build();
+            this.template = new R2dbcEntityTemplate(databaseClient, dataAccessStrategy);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bank.repository.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.sharding")
+public class ShardingProperties {
+
+    /**
+     * R2DBC url of every account shard, e.g. {@code bank.sharding.urls[0]=r2dbc:h2:mem:///shard0}. The order is
+     * part of the routing and must not change once accounts are stored.
+     */
+    private List<String> urls = new ArrayList<>();
+
+    /**
+     * Rows read from each shard per round trip when streaming all accounts.
+     */
+    private int pageSize = 500;
+}
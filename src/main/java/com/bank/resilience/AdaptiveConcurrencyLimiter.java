@@ -0,0 +1,208 @@
+package com.bank.resilience;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Gradient based concurrency limit for database operations.
+ * <p>
+ * Each completed operation is a latency sample. A long-term average of the samples is the latency the database
+ * shows when it is healthy; whenever the latest sample is slower than that, the limit shrinks proportionally,
+ * and while it is not, the limit grows by roughly the square root of itself. Operations above the limit wait in a
+ * bounded queue for a short while and are rejected with {@link ConcurrencyLimitExceededException} afterwards.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.db-concurrency", name = "enabled", havingValue = "true")
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueSize;
+    private final Duration queueTimeout;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(@Value("${bank.db-concurrency.initial-limit:20}") int initialLimit,
+                                      @Value("${bank.db-concurrency.min-limit:4}") int minLimit,
+                                      @Value("${bank.db-concurrency.max-limit:200}") int maxLimit,
+                                      @Value("${bank.db-concurrency.max-queue-size:100}") int maxQueueSize,
+                                      @Value("${bank.db-concurrency.queue-timeout-ms:50}") long queueTimeoutMs) {
+        this(initialLimit, minLimit, maxLimit, maxQueueSize, Duration.ofMillis(queueTimeoutMs), System::nanoTime);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueueSize,
+                                      Duration queueTimeout, LongSupplier nanoClock) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueSize = maxQueueSize;
+        this.queueTimeout = queueTimeout;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Emits a permit as soon as the operation may start. The permit must be released once the operation is over.
+     */
+    public Mono<Permit> acquire() {
+        return Mono.defer(() -> {
+            if (tryAcquire()) {
+                return Mono.just(new Permit());
+            }
+            if (queued.incrementAndGet() > maxQueueSize) {
+                queued.decrementAndGet();
+                return reject();
+            }
+            Waiter waiter = new Waiter();
+            waiters.add(waiter);
+            drain();
+            return waiter.permit
+                    .timeout(queueTimeout)
+                    .onErrorResume(TimeoutException.class, e -> {
+                        if (!waiter.done.compareAndSet(false, true)) {
+                            return waiter.permit;
+                        }
+                        if (waiters.remove(waiter)) {
+                            queued.decrementAndGet();
+                        }
+                        return reject();
+                    })
+                    .doOnCancel(() -> {
+                        if (!waiter.done.compareAndSet(false, true) && waiter.permit.peek() != null) {
+                            waiter.permit.peek().release(false);
+                        }
+                    });
+        });
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bank.db.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(registry);
+        Gauge.builder("bank.db.concurrency.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight).register(registry);
+        Gauge.builder("bank.db.concurrency.queued", queued, AtomicInteger::get).register(registry);
+        FunctionCounter.builder("bank.db.concurrency.rejected", rejected, AtomicLong::get).register(registry);
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private <T> Mono<T> reject() {
+        rejected.incrementAndGet();
+        return Mono.error(new ConcurrencyLimitExceededException());
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            queued.decrementAndGet();
+            if (waiter.done.compareAndSet(false, true)) {
+                waiter.permit.onNext(new Permit());
+            } else {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        if (longRtt == 0) {
+            longRtt = rttNanos;
+        } else {
+            longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+        }
+        if (longRtt / rttNanos > 2) {
+            // the database became faster than the long-term average, let the average catch up quickly
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        if (inFlightAtStart < current / 2 && rttNanos <= longRtt) {
+            // the limit was not what held back throughput, so the sample says nothing about it
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / rttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    public final class Permit {
+        private final long startNanos = nanoClock.getAsLong();
+        private final int inFlightAtStart = inFlight.get();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final AtomicLong executionNanos = new AtomicLong();
+
+        /**
+         * Records time the database spent on part of the operation. Once any is recorded, the release samples the
+         * recorded time instead of the whole time the permit was held, which also covers the caller's own work.
+         */
+        public void recordExecution(long nanos) {
+            executionNanos.addAndGet(nanos);
+        }
+
+        /**
+         * @param sample whether the time the operation took should adjust the limit
+         */
+        public void release(boolean sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inFlight.decrementAndGet();
+            if (sample) {
+                long executed = executionNanos.get();
+                onSample(executed > 0 ? executed : Math.max(1, nanoClock.getAsLong() - startNanos), inFlightAtStart);
+            }
+            drain();
+        }
+    }
+
+    private final class Waiter {
+        private final MonoProcessor<Permit> permit = MonoProcessor.create();
+        private final AtomicBoolean done = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,184 @@
+package com.bank.resilience;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import com.bank.exception.DatabaseUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTransientException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Timeouts, retries and a circuit breaker for reactive database calls.
+ * <p>
+ * Every operation gets a timeout, reads for {@code read-timeout-ms} and writes for {@code write-timeout-ms}.
+ * Reads are idempotent, so a read failing because of a timeout or a transient database error is retried with
+ * jittered exponential backoff; a read stream is only retried as long as it has not emitted anything yet. Writes
+ * are never retried. Consecutive database failures open the circuit breaker, after which calls fail fast with
+ * {@link DatabaseUnavailableException} until a trial call succeeds again.
+ */
+@Component
+public class DatabaseResilience implements MeterBinder {
+
+    private final Duration readTimeout;
+    private final Duration writeTimeout;
+    private final int readRetries;
+    private final Duration retryBackoff;
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public DatabaseResilience(@Value("${bank.db-resilience.read-timeout-ms:2000}") long readTimeoutMs,
+                              @Value("${bank.db-resilience.write-timeout-ms:5000}") long writeTimeoutMs,
+                              @Value("${bank.db-resilience.read-retries:2}") int readRetries,
+                              @Value("${bank.db-resilience.retry-backoff-ms:50}") long retryBackoffMs,
+                              @Value("${bank.db-resilience.failure-threshold:5}") int failureThreshold,
+                              @Value("${bank.db-resilience.open-duration-ms:10000}") long openDurationMs) {
+        this(Duration.ofMillis(readTimeoutMs), Duration.ofMillis(writeTimeoutMs), readRetries,
+                Duration.ofMillis(retryBackoffMs), failureThreshold, Duration.ofMillis(openDurationMs), System::nanoTime);
+    }
+
+    public DatabaseResilience(Duration readTimeout, Duration writeTimeout, int readRetries, Duration retryBackoff,
+                              int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+        this.readRetries = readRetries;
+        this.retryBackoff = retryBackoff;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration.toNanos(), nanoClock);
+    }
+
+    public <T> Mono<T> read(Mono<T> operation) {
+        return guarded(operation.timeout(readTimeout), readTimeout)
+                .retryWhen(retry(e -> true));
+    }
+
+    /**
+     * The timeout applies to the wait for every element, so a long but steadily progressing stream is not cut off.
+     */
+    public <T> Flux<T> read(Flux<T> operation) {
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return guarded(operation.timeout(readTimeout), readTimeout)
+                    .doOnNext(element -> emitted.set(true))
+                    .retryWhen(retry(e -> !emitted.get()));
+        });
+    }
+
+    public <T> Mono<T> write(Mono<T> operation) {
+        return guarded(operation.timeout(writeTimeout), writeTimeout);
+    }
+
+    public String getCircuitState() {
+        return circuitBreaker.getState().name();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("bank.db.circuit.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("bank.db.timeouts", timeouts, AtomicLong::get).register(registry);
+        FunctionCounter.builder("bank.db.retries", retries, AtomicLong::get).register(registry);
+        FunctionCounter.builder("bank.db.circuit.rejected", rejected, AtomicLong::get).register(registry);
+    }
+
+    private <T> Mono<T> guarded(Mono<T> operation, Duration timeout) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                rejected.incrementAndGet();
+                return Mono.error(new DatabaseUnavailableException());
+            }
+            AtomicBoolean recorded = new AtomicBoolean();
+            return operation
+                    .onErrorMap(TimeoutException.class, e -> timedOut(timeout))
+                    .doOnSuccess(value -> record(recorded, null))
+                    .doOnError(e -> record(recorded, e))
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onIgnored();
+                        }
+                    });
+        });
+    }
+
+    private <T> Flux<T> guarded(Flux<T> operation, Duration timeout) {
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                rejected.incrementAndGet();
+                return Flux.error(new DatabaseUnavailableException());
+            }
+            AtomicBoolean recorded = new AtomicBoolean();
+            return operation
+                    .onErrorMap(TimeoutException.class, e -> timedOut(timeout))
+                    .doOnComplete(() -> record(recorded, null))
+                    .doOnError(e -> record(recorded, e))
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onIgnored();
+                        }
+                    });
+        });
+    }
+
+    private void record(AtomicBoolean recorded, Throwable error) {
+        if (!recorded.compareAndSet(false, true)) {
+            return;
+        }
+        if (error != null && isDatabaseFailure(error)) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private QueryTimeoutException timedOut(Duration timeout) {
+        timeouts.incrementAndGet();
+        return new QueryTimeoutException("Database operation did not complete within " + timeout.toMillis() + "ms");
+    }
+
+    private Retry retry(Predicate<Throwable> allowed) {
+        return Retry.backoff(readRetries, retryBackoff)
+                .jitter(0.5)
+                .filter(e -> isDatabaseFailure(e) && allowed.test(e))
+                .doBeforeRetry(signal -> retries.incrementAndGet())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Whether the error says the database is unhealthy, as opposed to business errors (missing rows, constraint
+     * violations) and load shed by the concurrency limiter.
+     */
+    private static boolean isDatabaseFailure(Throwable error) {
+        if (error instanceof QueryTimeoutException) {
+            return true;
+        }
+        if (error instanceof DataAccessResourceFailureException) {
+            return !(error.getCause() instanceof ConcurrencyLimitExceededException);
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof R2dbcTransientException || cause instanceof R2dbcNonTransientResourceException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bank.resilience;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands out connections only while the {@link AdaptiveConcurrencyLimiter} has room. The permit is held from
+ * the moment the connection is requested until it is closed, but the limiter samples only the time its statements
+ * take until their first result, so waiting for slow consumers of a streamed result does not count as database
+ * latency.
+ * <p>
+ * Connections requested by an operation that already holds a permit, see {@link #underPermit()}, skip the limiter.
+ */
+public class LimitedConnectionFactory implements ConnectionFactory {
+
+    private static final String UNDER_PERMIT = LimitedConnectionFactory.class.getName() + ".underPermit";
+
+    private final ConnectionFactory delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LimitedConnectionFactory(ConnectionFactory delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Marks the connections requested by a publisher as part of an operation that already holds a permit, such as
+     * a read made for each row of a stream that keeps its own connection open. Waiting for a second permit there
+     * could wait forever once such streams hold every permit.
+     */
+    public static Context underPermit() {
+        return Context.of(UNDER_PERMIT, true);
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.subscriberContext()
+                .flatMap(context -> context.hasKey(UNDER_PERMIT) ? Mono.<Connection>from(delegate.create()) : createLimited());
+    }
+
+    private Mono<Connection> createLimited() {
+        return limiter.acquire()
+                .flatMap(permit -> {
+                    AtomicBoolean handedOut = new AtomicBoolean();
+                    return Mono.from(delegate.create())
+                            .map(connection -> {
+                                handedOut.set(true);
+                                return releasingOnClose(connection, permit);
+                            })
+                            .doFinally(signal -> {
+                                if (!handedOut.get()) {
+                                    permit.release(false);
+                                }
+                            });
+                });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    private Connection releasingOnClose(Connection connection, AdaptiveConcurrencyLimiter.Permit permit) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                            return Mono.from((Publisher<?>) method.invoke(connection))
+                                    .doFinally(signal -> permit.release(true));
+                        }
+                        if ("createStatement".equals(method.getName())) {
+                            return timed((Statement) method.invoke(connection, args), permit);
+                        }
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    /**
+     * Records the time from executing {@code statement} until its first result, or its end when it has none.
+     */
+    private static Statement timed(Statement statement, AdaptiveConcurrencyLimiter.Permit permit) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    try {
+                        if ("execute".equals(method.getName()) && method.getParameterCount() == 0) {
+                            return timed((Publisher<?>) method.invoke(statement), permit);
+                        }
+                        Object result = method.invoke(statement, args);
+                        // keep bind, add and the other builder methods on the proxy
+                        return result == statement ? proxy : result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static Flux<?> timed(Publisher<?> results, AdaptiveConcurrencyLimiter.Permit permit) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    permit.recordExecution(Math.max(1, System.nanoTime() - start));
+                }
+            };
+            return Flux.from(results)
+                    .doOnNext(result -> record.run())
+                    .doOnComplete(record)
+                    .doOnError(e -> record.run());
+        });
+    }
+}
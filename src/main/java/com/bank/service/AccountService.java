@@ -1,89 +1,440 @@
 package com.bank.service;
 
 import com.bank.exception.AccountNotFoundException;
+import com.bank.exception.CrossShardWriteException;
 import com.bank.exception.CustomerNotFoundException;
 import com.bank.model.domain.Account;
 import com.bank.model.domain.Customer;
 import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.BulkItemResultDto;
+import com.bank.model.dto.CustomerBalanceDto;
+import com.bank.model.types.Currency;
+import com.bank.repository.jdbc.JdbcAccountReader;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.resilience.DatabaseResilience;
+import com.bank.resilience.LimitedConnectionFactory;
+import com.bank.striping.AccountStripes;
+import com.bank.validation.BulkValidator;
+import com.bank.validation.iban.IbanValidator;
+import com.bank.writebehind.BalanceWriteBehind;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
 import static org.springframework.data.r2dbc.query.Criteria.where;
 
 
 @Service
 public class AccountService {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final int BULK_WRITE_CONCURRENCY = 8;
+
     ModelMapper mapper = new ModelMapper();
     @Autowired
     private R2dbcEntityTemplate template;
 
+    @Value("${bank.coalescing.enabled:false}")
+    private boolean coalescingEnabled;
+
+    @Value("${bank.coalescing.window-ms:2}")
+    private long coalescingWindowMs;
+
+    private RequestCoalescer<Integer, Account> coalescer;
+
+    @Autowired(required = false)
+    private IbanLookupFilter ibanLookupFilter;
+
+    @Autowired
+    private DatabaseResilience resilience;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired(required = false)
+    private JdbcAccountReader jdbcReader;
+
+    @Autowired
+    private BulkValidator bulkValidator;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    @Autowired(required = false)
+    private BalanceWriteBehind writeBehind;
+
+    @Autowired(required = false)
+    private AccountStripes stripes;
+
     public Flux<AccountDto> getAllAccounts() {
-        return template.select(Account.class)
-                .all()
+        Flux<Account> accounts = shards != null ? shards.findAll()
+                : jdbcReader != null ? jdbcReader.findAll() : template.select(Account.class).all();
+        return resilience.read(accounts)
+                .concatMap(this::current)
                 .map(a -> mapper.map(a, AccountDto.class));
     }
 
+    @PostConstruct
+    public void init() {
+        if (coalescingEnabled) {
+            coalescer = new RequestCoalescer<>(
+                    ids -> resilience.read(findAllById(ids)),
+                    Account::getId, Duration.ofMillis(coalescingWindowMs), MAX_BATCH_SIZE);
+        }
+    }
+
     public Mono<AccountDto> getById(Integer id) {
-        return template
-                .selectOne(Query.query(where("id").is(id)), Account.class)
+        Mono<Account> lookup = coalescer != null && id != null
+                ? coalescer.load(id)
+                : resilience.read(findById(id));
+        return lookup
                 .switchIfEmpty(Mono.error(new AccountNotFoundException(id)))
+                .flatMap(this::current)
+                .map(account -> mapper.map(account, AccountDto.class));
+    }
+
+    public Mono<String> getVersion(Integer id) {
+        if (shards != null) {
+            return id == null ? Mono.empty() : resilience.read(RowVersions.ofRow(shards.databaseClientForAccount(id), "accounts", id));
+        }
+        return resilience.read(RowVersions.ofRow(databaseClient, "accounts", id))
+                .map(version -> writeBehind == null ? version : writeBehind.version(id, version))
+                .flatMap(version -> stripes == null ? Mono.just(version) : resilience.read(stripes.version(id, version)));
+    }
+
+    public Mono<String> getAllAccountsVersion() {
+        if (shards != null) {
+            return resilience.read(RowVersions.ofShards(shards.databaseClients(), "accounts"));
+        }
+        return resilience.read(RowVersions.ofRows(databaseClient.execute(RowVersions.aggregate("accounts"))))
+                .map(version -> writeBehind == null ? version : writeBehind.version(version))
+                .flatMap(version -> stripes == null ? Mono.just(version) : resilience.read(stripes.version(version)));
+    }
+
+    public Flux<AccountDto> getByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Flux.error(new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids can be requested at once"));
+        }
+        return resilience.read(findAllById(ids))
+                .concatMap(this::current)
+                .map(account -> mapper.map(account, AccountDto.class));
+    }
+
+    /**
+     * Accounts issued from {@code from} to {@code to}, both inclusive, ordered by issue date and id. The range is a
+     * plain predicate on {@code issued_at}, so on a partitioned accounts table only the matching months are read.
+     */
+    public Flux<AccountDto> getAccountsIssuedBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            return Flux.error(new IllegalArgumentException("Invalid issue date range " + from + " - " + to));
+        }
+        Query range = Query.query(where("issued_at").greaterThanOrEquals(from).and("issued_at").lessThan(to.plusDays(1)))
+                .sort(Sort.by("issued_at", "id"));
+        Flux<Account> accounts = shards != null
+                ? shards.findIssuedBetween(from, to.plusDays(1))
+                : template.select(range, Account.class);
+        return resilience.read(accounts)
+                .concatMap(this::current)
+                .map(account -> mapper.map(account, AccountDto.class));
+    }
+
+    public Mono<AccountDto> getByIban(String iban) {
+        String normalizedIban = IbanValidator.normalize(iban);
+        if (ibanLookupFilter != null && !ibanLookupFilter.mightExist(normalizedIban)) {
+            return Mono.error(new AccountNotFoundException(iban));
+        }
+        Mono<Account> lookup = shards != null ? shards.findByNormalizedIban(normalizedIban)
+                : jdbcReader != null ? jdbcReader.findByNormalizedIban(normalizedIban)
+                : template.selectOne(Query.query(where("iban_normalized").is(normalizedIban)), Account.class);
+        return resilience.read(lookup)
+                .switchIfEmpty(Mono.error(new AccountNotFoundException(iban)))
+                .flatMap(this::current)
                 .map(account -> mapper.map(account, AccountDto.class));
     }
 
     public Mono<Integer> deleteAccountById(Integer id) {
-        return template.delete(Query.query(where("id").is(id)), Account.class);
+        return settle(id).then(resilience.write(shards != null && id != null
+                ? shards.deleteById(id)
+                : template.delete(Query.query(where("id").is(id)), Account.class)))
+                .flatMap(deleted -> stripes == null || id == null ? Mono.just(deleted)
+                        : resilience.write(stripes.forget(id)).thenReturn(deleted));
+    }
+
+    /**
+     * Adds {@code amount} to the balance of an account without reading and writing back the whole account. A
+     * striped account takes the credit on one of its stripes, any other account on its own row.
+     */
+    public Mono<Void> credit(Integer id, BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            return Mono.error(new IllegalArgumentException("Credit amount must be positive"));
+        }
+        return flushBuffered(id)
+                .then(resilience.read(findById(id)))
+                .switchIfEmpty(Mono.error(new AccountNotFoundException(id)))
+                .flatMap(account -> stripes != null && AccountStripes.isStriped(account)
+                        ? resilience.write(stripes.credit(id, account.getStripes(), amount))
+                        : Mono.just(0))
+                .flatMap(credited -> credited > 0 ? Mono.just(credited) : resilience.write(creditRow(id, amount)))
+                .then();
     }
 
     public Flux<AccountDto> getAccountsForCustomer(Integer id) {
-        return template
-                .selectOne(Query.query(where("id").is(id)), Customer.class)
+        return resilience.read(template.selectOne(Query.query(where("id").is(id)), Customer.class))
                 .switchIfEmpty(Mono.error(new CustomerNotFoundException(id)))
-                .flatMapMany(customer -> template.select(Query.query(where("customer_id").is(id)), Account.class))
+                .flatMapMany(customer -> resilience.read(shards != null
+                        ? shards.findByCustomerId(id)
+                        : template.select(Query.query(where("customer_id").is(id)), Account.class)))
+                .concatMap(this::current)
                 .map(account -> mapper.map(account, AccountDto.class));
     }
 
+    /**
+     * The accounts of a customer with their amounts converted to {@code currency}, all at the same set of rates.
+     */
+    public Flux<AccountDto> getAccountsForCustomer(Integer id, String currency) {
+        if (currency == null) {
+            return getAccountsForCustomer(id);
+        }
+        return Mono.fromCallable(() -> Currency.fromName(currency))
+                .flatMapMany(target -> {
+                    FxRateSnapshot rates = fxRateService.current();
+                    return getAccountsForCustomer(id).map(account -> convert(account, rates, target));
+                });
+    }
+
+    public Mono<CustomerBalanceDto> getCustomerBalance(Integer id, String currency) {
+        return Mono.fromCallable(() -> Currency.fromName(currency))
+                .flatMap(target -> {
+                    FxRateSnapshot rates = fxRateService.current();
+                    return getAccountsForCustomer(id)
+                            .filter(account -> account.getAmount() != null && account.getCurrency() != null)
+                            .map(account -> rates.convert(account.getAmount(), Currency.valueOf(account.getCurrency()), target))
+                            .collectList()
+                            .map(amounts -> CustomerBalanceDto.builder()
+                                    .customerId(id)
+                                    .currency(target.name())
+                                    .amount(amounts.stream().reduce(BigDecimal.ZERO.setScale(4), BigDecimal::add))
+                                    .accounts(amounts.size())
+                                    .ratesLoadedAt(rates.getLoadedAt())
+                                    .build());
+                });
+    }
+
     public Mono<AccountDto> createAccount(AccountDto accountDto) {
         Account account = mapper.map(accountDto, Account.class);
-        return template
-                .selectOne(Query.query(where("id").is(accountDto.getCustomerId())), Customer.class)
+        return resilience.read(template.selectOne(Query.query(where("id").is(accountDto.getCustomerId())), Customer.class))
                 .switchIfEmpty(Mono.error(new CustomerNotFoundException(accountDto.getCustomerId())))
-                .flatMap(customer -> template.insert(Account.class)
-                        .using(account)
-                        .map(a1 -> mapper.map(a1, AccountDto.class))
-                );
+                .flatMap(customer -> shards != null
+                        ? resilience.write(shards.insert(account)).flatMap(this::removeIfCustomerDeleted)
+                        : resilience.write(template.insert(Account.class).using(account)))
+                .doOnNext(this::rememberIban)
+                .map(a1 -> mapper.map(a1, AccountDto.class));
+
+    }
+
+    /**
+     * Checks again for the customer of an account just created on a shard, which may have been deleted meanwhile,
+     * see {@link CustomerService#deleteUserById}.
+     */
+    private Mono<Account> removeIfCustomerDeleted(Account account) {
+        return resilience.read(template.selectOne(Query.query(where("id").is(account.getCustomerId())), Customer.class))
+                .hasElement()
+                .flatMap(exists -> exists ? Mono.just(account)
+                        : resilience.write(shards.deleteById(account.getId()))
+                        .then(Mono.<Account>error(new CustomerNotFoundException(account.getCustomerId()))));
+    }
 
+    /**
+     * Validates all accounts in parallel, then creates the valid ones. Reports the outcome of every account, in
+     * input order.
+     */
+    public Flux<BulkItemResultDto<AccountDto>> importAccounts(List<AccountDto> accounts) {
+        return bulkValidator.validateAccounts(accounts)
+                .index()
+                .flatMapSequential(result -> {
+                    int index = result.getT1().intValue();
+                    if (!result.getT2().isEmpty()) {
+                        return Mono.just(BulkItemResultDto.<AccountDto>invalid(index, result.getT2()));
+                    }
+                    return createAccount(accounts.get(index))
+                            .map(created -> BulkItemResultDto.created(index, created))
+                            .onErrorResume(e -> Mono.just(BulkItemResultDto.<AccountDto>failed(index, e.getMessage())));
+                }, BULK_WRITE_CONCURRENCY);
     }
 
     public Mono<AccountDto> updateAccount(AccountDto accountDto) {
         Account account = mapper.map(accountDto, Account.class);
-        return template
+        if (shards != null) {
+            return updateSharded(account);
+        }
+        return settle(accountDto.getId()).then(resilience.write(template
                 .update(account)
                 .onErrorMap(err -> err instanceof DataIntegrityViolationException ?
                         new CustomerNotFoundException(accountDto.getCustomerId())
-                        : new AccountNotFoundException(accountDto.getId()))
+                        : new AccountNotFoundException(accountDto.getId()))))
+                .doOnNext(this::rememberIban)
                 .map(resultAccount -> mapper.map(resultAccount, AccountDto.class));
 
     }
 
     public Mono<AccountDto> updateAccountPatch(AccountDto dto) {
-        return template
-                .selectOne(Query.query(where("id").is(dto.getId())), Account.class)
+        Mono<Account> patched = writeBehind != null && dto.getId() != null
+                ? updateAccountPatchBuffered(dto)
+                : updateAccountPatchStored(dto);
+        return patched
+                .doOnNext(this::rememberIban)
+                .map(account -> mapper.map(account, AccountDto.class));
+    }
+
+    private Mono<Account> updateAccountPatchStored(AccountDto dto) {
+        return settle(dto.getId())
+                .then(resilience.read(findById(dto.getId())))
                 .switchIfEmpty(Mono.error(new AccountNotFoundException(dto.getId())))
                 .map(account -> applyDifferences(dto, account))
-                .flatMap(template::update)
-                .map(account -> mapper.map(account, AccountDto.class));
+                .flatMap(account -> resilience.write(shards != null ? shards.update(account) : template.update(account)));
+    }
+
+    /**
+     * With write-behind, a patch that only changes the amount goes to the buffer and is acknowledged once it is in
+     * the journal. While an account has a buffered amount, patches are compared against the buffered account and
+     * need no read either. Any other patch first writes the buffered amount and then updates the account as usual,
+     * and so does every patch of a striped account, whose row has to take what its stripes collected first.
+     */
+    private Mono<Account> updateAccountPatchBuffered(AccountDto dto) {
+        Account buffered = writeBehind.get(dto.getId());
+        Mono<Account> current = buffered != null ? Mono.just(buffered)
+                : resilience.read(findById(dto.getId())).switchIfEmpty(Mono.error(new AccountNotFoundException(dto.getId())));
+        return current
+                .flatMap(account -> {
+                    if (stripes != null && AccountStripes.isStriped(account)) {
+                        return updateAccountPatchStored(dto);
+                    }
+                    Account patched = applyDifferences(dto, mapper.map(account, Account.class));
+                    if (patched.getAmount() != null && sameExceptAmount(account, patched)) {
+                        return writeBehind.put(patched);
+                    }
+                    return writeBehind.flush(dto.getId()).then(resilience.write(template.update(patched)));
+                });
+    }
+
+    private static boolean sameExceptAmount(Account account, Account patched) {
+        return Objects.equals(account.getIban(), patched.getIban())
+                && account.getCurrency() == patched.getCurrency()
+                && Objects.equals(account.getCustomerId(), patched.getCustomerId())
+                && Objects.equals(account.getIssuedAt(), patched.getIssuedAt());
+    }
+
+    /**
+     * With sharding the customer lives in the main database and the account on its customer's shard, so the
+     * customer has to be checked separately, and an account can only be updated on the shard it is on.
+     */
+    private Mono<AccountDto> updateSharded(Account account) {
+        if (account.getId() == null) {
+            return Mono.error(new AccountNotFoundException(account.getId()));
+        }
+        Mono<Customer> customer = account.getCustomerId() == null ? Mono.empty()
+                : resilience.read(template.selectOne(Query.query(where("id").is(account.getCustomerId())), Customer.class))
+                .switchIfEmpty(Mono.error(new CustomerNotFoundException(account.getCustomerId())));
+        return customer
+                .then(resilience.write(shards.update(account)
+                        .onErrorMap(err -> !(err instanceof CrossShardWriteException), err -> new AccountNotFoundException(account.getId()))))
+                .doOnNext(this::rememberIban)
+                .map(resultAccount -> mapper.map(resultAccount, AccountDto.class));
+    }
+
+    private Account withBufferedAmount(Account account) {
+        return writeBehind == null ? account : writeBehind.withBufferedAmount(account);
+    }
+
+    /**
+     * The account with the amount clients see: its buffered amount with write-behind, or the amount of its row
+     * plus its stripes when it is striped. Called while the read of the account still holds its connection, so
+     * reading the stripes takes no second concurrency permit.
+     */
+    private Mono<Account> current(Account account) {
+        if (stripes != null && AccountStripes.isStriped(account)) {
+            return resilience.read(stripes.withStripes(account))
+                    .subscriberContext(LimitedConnectionFactory.underPermit());
+        }
+        return Mono.just(withBufferedAmount(account));
+    }
+
+    private Mono<Void> flushBuffered(Integer id) {
+        return writeBehind == null ? Mono.empty() : writeBehind.flush(id);
+    }
+
+    /**
+     * Brings the account row up to date before a regular write to it, which replaces the whole balance: writes
+     * its buffered amount and moves what its stripes collected into it.
+     */
+    private Mono<Void> settle(Integer id) {
+        return stripes == null ? flushBuffered(id) : resilience.write(stripes.rebalance(id)).then();
+    }
+
+    private Mono<Integer> creditRow(Integer id, BigDecimal amount) {
+        return (shards != null ? shards.databaseClientForAccount(id) : databaseClient)
+                .execute("update accounts set amount = coalesce(amount, 0) + :amount where id = :id")
+                .bind("amount", amount)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated == 0 ? Mono.<Integer>error(new AccountNotFoundException(id)) : Mono.just(updated));
+    }
+
+    private Mono<Account> findById(Integer id) {
+        if (id == null) {
+            return template.selectOne(Query.query(where("id").is(id)), Account.class);
+        }
+        return shards != null ? shards.findById(id)
+                : jdbcReader != null ? jdbcReader.findById(id)
+                : template.selectOne(Query.query(where("id").is(id)), Account.class);
+    }
+
+    private Flux<Account> findAllById(List<Integer> ids) {
+        return shards != null ? shards.findAllById(ids)
+                : jdbcReader != null ? jdbcReader.findAllById(ids)
+                : template.select(Query.query(where("id").in(ids)), Account.class);
+    }
+
+    private static AccountDto convert(AccountDto account, FxRateSnapshot rates, Currency target) {
+        if (account.getAmount() != null && account.getCurrency() != null) {
+            account.setAmount(rates.convert(account.getAmount(), Currency.valueOf(account.getCurrency()), target));
+            account.setCurrency(target.name());
+        }
+        return account;
+    }
+
+    private void rememberIban(Account account) {
+        if (ibanLookupFilter != null && account.getIban() != null) {
+            ibanLookupFilter.put(account.getIban());
+        }
     }
 
     private Account applyDifferences(AccountDto dto, Account account) {
-        if (dto.getCurrency() != null && !dto.getCurrency().equals(account.getCurrency())) {
-            account.setCurrency(dto.getCurrency());
+        if (dto.getCurrency() != null && !Currency.fromName(dto.getCurrency()).equals(account.getCurrency())) {
+            account.setCurrency(Currency.fromName(dto.getCurrency()));
         }
         if (dto.getAmount() != null && !dto.getAmount().equals(account.getAmount())) {
             account.setAmount(dto.getAmount());
@@ -2,59 +2,336 @@ package com.bank.service;
 
 import com.bank.exception.CustomerHasAssociatedAccountsException;
 import com.bank.exception.CustomerNotFoundException;
+import com.bank.model.domain.Account;
 import com.bank.model.domain.Customer;
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.BulkItemResultDto;
 import com.bank.model.dto.CustomerDto;
+import com.bank.model.types.Currency;
 import com.bank.repository.CustomerRepository;
+import com.bank.repository.jdbc.JdbcCustomerReader;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.resilience.DatabaseResilience;
+import com.bank.striping.AccountStripes;
+import com.bank.validation.BulkValidator;
+import com.bank.writebehind.BalanceWriteBehind;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
 @Service
 public class CustomerService {
 
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private static final int BULK_WRITE_CONCURRENCY = 8;
+
+    private static final int SHARDED_ACCOUNT_LOOKUPS = 16;
+
+    /**
+     * The amount of a striped account is the amount of its row plus what its stripes collected since the last
+     * rebalance, like {@link AccountStripes#withStripes} reads it. Buffered amounts of plain accounts replace the
+     * amount of their row once read, like {@link AccountService} does.
+     */
+    private static final String CUSTOMERS_WITH_ACCOUNTS = "select c.id, c.fullName, c.address, c.phone_number, c.ssn," +
+            " a.id as account_id, a.iban, a.currency, a.issued_at, a.stripes," +
+            " case when s.collected is null then a.amount else coalesce(a.amount, 0) + s.collected end as amount" +
+            " from customer c left join accounts a on a.customer_id = c.id" +
+            " left join (select account_id, sum(amount) as collected from account_stripe group by account_id) s" +
+            " on s.account_id = a.id";
+
     ModelMapper mapper = new ModelMapper();
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private DatabaseResilience resilience;
+
+    @Autowired(required = false)
+    private JdbcCustomerReader jdbcReader;
+
+    @Autowired
+    private BulkValidator bulkValidator;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    @Autowired(required = false)
+    private AccountStripes stripes;
+
+    @Autowired(required = false)
+    private BalanceWriteBehind writeBehind;
+
+    @Value("${bank.coalescing.enabled:false}")
+    private boolean coalescingEnabled;
+
+    @Value("${bank.coalescing.window-ms:2}")
+    private long coalescingWindowMs;
+
+    private RequestCoalescer<Integer, Customer> coalescer;
+
+    @PostConstruct
+    public void init() {
+        if (coalescingEnabled) {
+            coalescer = new RequestCoalescer<>(ids -> resilience.read(findAllById(ids)), Customer::getId,
+                    Duration.ofMillis(coalescingWindowMs), MAX_BATCH_SIZE);
+        }
+    }
+
     public Flux<CustomerDto> getAllCustomers() {
-        return customerRepository
-                .findAll()
+        Flux<Customer> customers = jdbcReader != null ? jdbcReader.findAll() : customerRepository.findAll();
+        return resilience.read(customers)
                 .map(customer -> mapper.map(customer, CustomerDto.class));
     }
 
     public Mono<CustomerDto> getCustomerById(Integer id) {
-        return customerRepository
-                .findById(id)
+        Mono<Customer> lookup = coalescer != null && id != null
+                ? coalescer.load(id)
+                : resilience.read(jdbcReader != null && id != null ? jdbcReader.findById(id) : customerRepository.findById(id));
+        return lookup
                 .switchIfEmpty(Mono.error(new CustomerNotFoundException(id)))
                 .map(customer -> mapper.map(customer, CustomerDto.class));
     }
 
+    public Mono<String> getVersion(Integer id) {
+        return resilience.read(RowVersions.ofRow(databaseClient, "customer", id));
+    }
+
+    public Mono<String> getAllCustomersVersion() {
+        return resilience.read(RowVersions.ofRows(databaseClient.execute(RowVersions.aggregate("customer"))));
+    }
+
+    public Mono<String> getCustomerWithAccountsVersion(Integer id) {
+        DatabaseClient accountsClient = shards != null && id != null ? shards.databaseClientForCustomer(id) : databaseClient;
+        return getVersion(id).flatMap(customerVersion -> resilience
+                .read(RowVersions.ofRows(accountsClient
+                        .execute(RowVersions.aggregate("accounts") + " where customer_id = :id")
+                        .bind("id", id)))
+                .flatMap(accountsVersion -> stripes == null ? Mono.just(accountsVersion)
+                        : resilience.read(stripes.versionOfCustomer(id, accountsVersion)))
+                .map(accountsVersion -> writeBehind == null ? accountsVersion
+                        : writeBehind.versionOfCustomer(id, accountsVersion))
+                .map(accountsVersion -> customerVersion + "-" + accountsVersion));
+    }
+
+    public Mono<String> getAllCustomersWithAccountsVersion() {
+        Mono<String> accountsVersion = shards != null
+                ? RowVersions.ofShards(shards.databaseClients(), "accounts")
+                : RowVersions.ofRows(databaseClient.execute(RowVersions.aggregate("accounts")))
+                .flatMap(version -> stripes == null ? Mono.just(version) : stripes.version(version))
+                .map(version -> writeBehind == null ? version : writeBehind.version(version));
+        return getAllCustomersVersion().zipWith(resilience.read(accountsVersion),
+                (customersVersion, accountsVersion) -> customersVersion + "-" + accountsVersion);
+    }
+
+    public Mono<CustomerDto> getCustomerWithAccounts(Integer id) {
+        if (shards != null) {
+            return resilience.read(customerRepository.findById(id))
+                    .switchIfEmpty(Mono.error(new CustomerNotFoundException(id)))
+                    .flatMap(this::withShardedAccounts);
+        }
+        Flux<CustomerAccountRow> rows = resilience.read(databaseClient
+                .execute(CUSTOMERS_WITH_ACCOUNTS + " where c.id = :id order by a.id")
+                .bind("id", id)
+                .map(this::toCustomerAccountRow)
+                .all());
+        return groupByCustomer(rows)
+                .next()
+                .switchIfEmpty(Mono.error(new CustomerNotFoundException(id)));
+    }
+
+    public Flux<CustomerDto> getAllCustomersWithAccounts() {
+        if (shards != null) {
+            return resilience.read(databaseClient.select().from(Customer.class).orderBy(Sort.by("id")).fetch().all())
+                    .flatMapSequential(this::withShardedAccounts, SHARDED_ACCOUNT_LOOKUPS);
+        }
+        Flux<CustomerAccountRow> rows = resilience.read(databaseClient
+                .execute(CUSTOMERS_WITH_ACCOUNTS + " order by c.id, a.id")
+                .map(this::toCustomerAccountRow)
+                .all());
+        return groupByCustomer(rows);
+    }
+
+    /**
+     * With sharding there is no join: the accounts of a customer are read from the shard holding them.
+     */
+    private Mono<CustomerDto> withShardedAccounts(Customer customer) {
+        return resilience.read(shards.findByCustomerId(customer.getId()))
+                .sort(Comparator.comparing(Account::getId))
+                .map(account -> mapper.map(account, AccountDto.class))
+                .collectList()
+                .map(accounts -> {
+                    CustomerDto customerDto = mapper.map(customer, CustomerDto.class);
+                    customerDto.setAccounts(accounts);
+                    return customerDto;
+                });
+    }
+
+    /**
+     * Folds the customer/account join rows, ordered by customer id, into one {@link CustomerDto} per customer.
+     * Only the rows of the customer being assembled are buffered.
+     */
+    private Flux<CustomerDto> groupByCustomer(Flux<CustomerAccountRow> rows) {
+        return Flux.defer(() -> {
+            AtomicReference<Integer> previousCustomerId = new AtomicReference<>();
+            return rows.bufferUntil(row -> !row.customer.getId().equals(previousCustomerId.getAndSet(row.customer.getId())), true);
+        })
+                .filter(group -> !group.isEmpty())
+                .map(group -> {
+                    CustomerDto customerDto = mapper.map(group.get(0).customer, CustomerDto.class);
+                    customerDto.setAccounts(group.stream()
+                            .filter(row -> row.account != null)
+                            .map(row -> mapper.map(row.account, AccountDto.class))
+                            .collect(Collectors.toList()));
+                    return customerDto;
+                });
+    }
+
+    private CustomerAccountRow toCustomerAccountRow(Row row, RowMetadata metadata) {
+        Customer customer = Customer.builder()
+                .id(toInteger(row.get("id")))
+                .fullName(row.get("fullName", String.class))
+                .address(row.get("address", String.class))
+                .phoneNumber(row.get("phone_number", String.class))
+                .ssn(row.get("ssn", String.class))
+                .build();
+        Integer accountId = toInteger(row.get("account_id"));
+        if (accountId == null) {
+            return new CustomerAccountRow(customer, null);
+        }
+        Number currency = (Number) row.get("currency");
+        Account account = Account.builder()
+                .id(accountId)
+                .iban(row.get("iban", String.class))
+                .currency(currency == null ? null : Currency.fromCode(currency.shortValue()))
+                .amount(row.get("amount", BigDecimal.class))
+                .customerId(customer.getId())
+                .issuedAt(row.get("issued_at", LocalDate.class))
+                .stripes(toInteger(row.get("stripes")))
+                .build();
+        if (writeBehind != null && !AccountStripes.isStriped(account)) {
+            writeBehind.withBufferedAmount(account);
+        }
+        return new CustomerAccountRow(customer, account);
+    }
+
+    private static Integer toInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    public Flux<CustomerDto> getCustomersByIds(List<Integer> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return Flux.error(new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids can be requested at once"));
+        }
+        return resilience.read(findAllById(ids))
+                .map(customer -> mapper.map(customer, CustomerDto.class));
+    }
+
+    private Flux<Customer> findAllById(List<Integer> ids) {
+        if (jdbcReader == null) {
+            return customerRepository.findAllById(ids);
+        }
+        return ids.isEmpty() ? Flux.empty() : jdbcReader.findAllById(ids);
+    }
+
+    public Flux<CustomerDto> searchCustomers(String term, Integer afterId, Integer limit) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return resilience.read(customerRepository
+                .search(escaped + "%", "%" + escaped + "%", afterId, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT))))
+                .map(customer -> mapper.map(customer, CustomerDto.class));
+    }
+
     public Mono<CustomerDto> updateCustomer(CustomerDto customerDto) {
         Customer customer = mapper.map(customerDto, Customer.class);
-        return customerRepository.findById(customerDto.getId())
+        return resilience.read(customerRepository.findById(customerDto.getId()))
                 .switchIfEmpty(Mono.error(new CustomerNotFoundException(customerDto.getId())))
-                .flatMap(c -> customerRepository.save(customer))
+                .flatMap(c -> resilience.write(customerRepository.save(customer)))
                 .map(c1 -> mapper.map(c1, CustomerDto.class));
 
 
     }
 
+    /**
+     * With sharding no foreign key keeps an account from being created on a shard while its customer is deleted,
+     * so both sides check again after their write: a deleted customer that got an account meanwhile is restored,
+     * and {@link AccountService#createAccount} removes an account whose customer is gone.
+     */
     public Mono<CustomerDto> deleteUserById(Integer id) {
 
-        return customerRepository.findById(id)
-                .flatMap(c -> customerRepository.deleteById(id).thenReturn(c))
-                .onErrorMap(e -> new CustomerHasAssociatedAccountsException(id))
+        return resilience.read(customerRepository.findById(id))
+                .flatMap(c -> shards == null ? Mono.just(c) : resilience.read(shards.findByCustomerId(id))
+                        .hasElements()
+                        .flatMap(hasAccounts -> hasAccounts
+                                ? Mono.<Customer>error(new CustomerHasAssociatedAccountsException(id))
+                                : Mono.just(c)))
+                .flatMap(c -> resilience.write(customerRepository.deleteById(id)
+                        .onErrorMap(e -> new CustomerHasAssociatedAccountsException(id)))
+                        .then(shards == null ? Mono.just(c) : restoreIfAccountsAppeared(c)))
                 .switchIfEmpty(Mono.error(new CustomerNotFoundException(id)))
                 .map(c1 -> mapper.map(c1, CustomerDto.class));
 
     }
 
+    private Mono<Customer> restoreIfAccountsAppeared(Customer customer) {
+        return resilience.read(shards.findByCustomerId(customer.getId()))
+                .hasElements()
+                .flatMap(hasAccounts -> !hasAccounts ? Mono.just(customer)
+                        : resilience.write(databaseClient.insert().into(Customer.class).using(customer).then())
+                        .then(Mono.<Customer>error(new CustomerHasAssociatedAccountsException(customer.getId()))));
+    }
+
     public Mono<CustomerDto> createUser(CustomerDto customerDto) {
         Customer customer = mapper.map(customerDto, Customer.class);
-        return customerRepository.save(customer)
+        return resilience.write(customerRepository.save(customer))
                 .map(res -> mapper.map(res, CustomerDto.class));
     }
-}
 
+    /**
+     * Validates all customers in parallel, then creates the valid ones. Reports the outcome of every customer, in
+     * input order.
+     */
+    public Flux<BulkItemResultDto<CustomerDto>> importCustomers(List<CustomerDto> customers) {
+        return bulkValidator.validateCustomers(customers)
+                .index()
+                .flatMapSequential(result -> {
+                    int index = result.getT1().intValue();
+                    if (!result.getT2().isEmpty()) {
+                        return Mono.just(BulkItemResultDto.<CustomerDto>invalid(index, result.getT2()));
+                    }
+                    return createUser(customers.get(index))
+                            .map(created -> BulkItemResultDto.created(index, created))
+                            .onErrorResume(e -> Mono.just(BulkItemResultDto.<CustomerDto>failed(index, e.getMessage())));
+                }, BULK_WRITE_CONCURRENCY);
+    }
+
+    private static final class CustomerAccountRow {
+        private final Customer customer;
+        private final Account account;
+
+        private CustomerAccountRow(Customer customer, Account account) {
+            this.customer = customer;
+            this.account = account;
+        }
+    }
+}
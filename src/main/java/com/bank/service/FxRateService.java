@@ -0,0 +1,80 @@
+package com.bank.service;
+
+import com.bank.model.types.Currency;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link FxRateSnapshot}, loaded from a properties file ({@code base=EUR}, {@code RON=4.975}, ...).
+ * <p>
+ * The file is re-read periodically and the new snapshot replaces the old one atomically: readers never lock and
+ * always see one complete set of rates. A file that cannot be read or parsed keeps the previous snapshot in place.
+ */
+@Slf4j
+@Service
+public class FxRateService {
+
+    private final AtomicReference<FxRateSnapshot> snapshot = new AtomicReference<>();
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${bank.fx.rates-location:classpath:fx-rates.properties}")
+    private String ratesLocation;
+
+    @PostConstruct
+    public void init() {
+        snapshot.set(load(resourceLoader.getResource(ratesLocation)));
+    }
+
+    @Scheduled(fixedDelayString = "${bank.fx.refresh-ms:60000}", initialDelayString = "${bank.fx.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            snapshot.set(load(resourceLoader.getResource(ratesLocation)));
+        } catch (RuntimeException e) {
+            log.error("Could not refresh exchange rates from {}, keeping the previous ones : {}", ratesLocation, e.getMessage());
+        }
+    }
+
+    public FxRateSnapshot current() {
+        return snapshot.get();
+    }
+
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to) {
+        return snapshot.get().convert(amount, from, to);
+    }
+
+    private static FxRateSnapshot load(Resource resource) {
+        Properties properties = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read exchange rates from " + resource, e);
+        }
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        for (Currency currency : Currency.values()) {
+            String rate = properties.getProperty(currency.name());
+            if (rate != null) {
+                rates.put(currency, new BigDecimal(rate.trim()));
+            }
+        }
+        Currency base = Currency.valueOf(properties.getProperty("base", "EUR").trim());
+        return new FxRateSnapshot(base, rates, Instant.now());
+    }
+}
@@ -0,0 +1,72 @@
+package com.bank.service;
+
+import com.bank.model.types.Currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable set of exchange rates. Every cross rate is computed once when the snapshot is built, so a conversion
+ * is a plain array lookup and a multiplication.
+ */
+public final class FxRateSnapshot {
+
+    private static final int AMOUNT_SCALE = 4;
+
+    private final Currency base;
+    private final Map<Currency, BigDecimal> rates;
+    private final BigDecimal[][] crossRates;
+    private final Instant loadedAt;
+
+    /**
+     * @param rates units of each currency worth one unit of {@code base}; every currency must have a rate
+     */
+    public FxRateSnapshot(Currency base, Map<Currency, BigDecimal> rates, Instant loadedAt) {
+        Currency[] currencies = Currency.values();
+        this.crossRates = new BigDecimal[currencies.length][currencies.length];
+        for (Currency from : currencies) {
+            for (Currency to : currencies) {
+                BigDecimal fromRate = rate(rates, from);
+                crossRates[from.ordinal()][to.ordinal()] = from == to
+                        ? BigDecimal.ONE
+                        : rate(rates, to).divide(fromRate, MathContext.DECIMAL64);
+            }
+        }
+        this.base = base;
+        this.rates = Collections.unmodifiableMap(new EnumMap<>(rates));
+        this.loadedAt = loadedAt;
+    }
+
+    public BigDecimal convert(BigDecimal amount, Currency from, Currency to) {
+        return amount.multiply(rate(from, to)).setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    public BigDecimal rate(Currency from, Currency to) {
+        return crossRates[from.ordinal()][to.ordinal()];
+    }
+
+    public Currency getBase() {
+        return base;
+    }
+
+    public Map<Currency, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    private static BigDecimal rate(Map<Currency, BigDecimal> rates, Currency currency) {
+        BigDecimal rate = rates.get(currency);
+        if (rate == null || rate.signum() <= 0) {
+            throw new IllegalArgumentException("Missing or invalid exchange rate for " + currency);
+        }
+        return rate;
+    }
+}
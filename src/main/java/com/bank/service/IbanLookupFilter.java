@@ -0,0 +1,67 @@
+package com.bank.service;
+
+import com.bank.cache.BloomFilter;
+import com.bank.model.domain.Account;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.validation.iban.IbanValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Negative-lookup cache for IBANs. Until the filter has been loaded with every stored IBAN it answers
+ * "might exist" for everything, afterwards an unknown IBAN is rejected without touching the database.
+ * <p>
+ * The filter only sees writes made by this instance, so it must stay disabled when several instances
+ * share the same database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "bank.iban-filter", name = "enabled", havingValue = "true")
+public class IbanLookupFilter {
+
+    private final BloomFilter filter;
+
+    private volatile boolean loaded;
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    public IbanLookupFilter(@Value("${bank.iban-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${bank.iban-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Flux<Account> accounts = shards != null ? shards.findAll() : template.select(Account.class).all();
+        accounts.filter(account -> account.getIban() != null)
+                .doOnNext(account -> put(account.getIban()))
+                .count()
+                .subscribe(count -> {
+                    loaded = true;
+                    log.info("Loaded {} ibans into the lookup filter", count);
+                }, e -> log.error("Could not load the iban lookup filter : {}", e.getMessage()));
+    }
+
+    public void put(String iban) {
+        filter.put(IbanValidator.normalize(iban));
+    }
+
+    public boolean mightExist(String normalizedIban) {
+        return !loaded || filter.mightContain(normalizedIban);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bank.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Merges single-key lookups that arrive within a short window into one batch query, in the style of a
+ * DataLoader. A key that the batch query does not return completes its callers empty.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Function<List<K>, Flux<V>> batchLoader;
+    private final Function<V, K> keyExtractor;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Scheduler scheduler = Schedulers.parallel();
+    private final AtomicReference<Batch<K, V>> current = new AtomicReference<>();
+
+    public RequestCoalescer(Function<List<K>, Flux<V>> batchLoader, Function<V, K> keyExtractor,
+                            Duration window, int maxBatchSize) {
+        this.batchLoader = batchLoader;
+        this.keyExtractor = keyExtractor;
+        this.windowMillis = window.toMillis();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Mono<V> load(K key) {
+        return Mono.create(sink -> enqueue(key, sink));
+    }
+
+    private void enqueue(K key, MonoSink<V> sink) {
+        while (true) {
+            Batch<K, V> batch = current.get();
+            if (batch == null) {
+                Batch<K, V> opened = new Batch<>();
+                if (!current.compareAndSet(null, opened)) {
+                    continue;
+                }
+                scheduler.schedule(() -> flush(opened), windowMillis, TimeUnit.MILLISECONDS);
+                batch = opened;
+            }
+            int size = batch.add(key, sink);
+            if (size > 0) {
+                if (size >= maxBatchSize) {
+                    flush(batch);
+                }
+                return;
+            }
+            current.compareAndSet(batch, null);
+        }
+    }
+
+    private void flush(Batch<K, V> batch) {
+        current.compareAndSet(batch, null);
+        Map<K, List<MonoSink<V>>> waiters = batch.close();
+        if (waiters == null) {
+            return;
+        }
+        Flux.defer(() -> batchLoader.apply(new ArrayList<>(waiters.keySet())))
+                .collectMap(keyExtractor)
+                .subscribe(results -> waiters.forEach((key, sinks) -> {
+                    V value = results.get(key);
+                    for (MonoSink<V> sink : sinks) {
+                        if (value == null) {
+                            sink.success();
+                        } else {
+                            sink.success(value);
+                        }
+                    }
+                }), error -> waiters.values().forEach(sinks -> sinks.forEach(sink -> sink.error(error))));
+    }
+
+    private static final class Batch<K, V> {
+        private final Map<K, List<MonoSink<V>>> waiters = new HashMap<>();
+        private boolean closed;
+        private int size;
+
+        /**
+         * @return the number of callers in the batch after adding this one, or 0 if the batch was already flushed
+         */
+        private synchronized int add(K key, MonoSink<V> sink) {
+            if (closed) {
+                return 0;
+            }
+            waiters.computeIfAbsent(key, k -> new ArrayList<>()).add(sink);
+            return ++size;
+        }
+
+        private synchronized Map<K, List<MonoSink<V>>> close() {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            return waiters;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.service;
+
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Version tokens built from the {@code row_version} columns, used as ETags.
+ * <p>
+ * A single row is identified by its own {@code row_version}, which only needs the (id, row_version) index. A set
+ * of rows is identified by its size, the sum of its versions and its highest id: an update raises the sum, an
+ * insert or delete changes the size, and the highest id separates a delete followed by an insert.
+ */
+final class RowVersions {
+
+    private RowVersions() {
+    }
+
+    static Mono<String> ofRow(DatabaseClient databaseClient, String table, Integer id) {
+        return databaseClient
+                .execute("select row_version from " + table + " where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> String.valueOf(((Number) row.get("row_version")).longValue()))
+                .one();
+    }
+
+    static Mono<String> ofRows(DatabaseClient.GenericExecuteSpec aggregate) {
+        return aggregate
+                .map((row, metadata) -> longValue(row.get("total")) + "." + longValue(row.get("versions")) + "."
+                        + longValue(row.get("last_id")))
+                .one();
+    }
+
+    /**
+     * Like {@link #ofRows(DatabaseClient.GenericExecuteSpec)} for a table split over several databases: sizes and
+     * version sums add up, the highest id is the highest of all.
+     */
+    static Mono<String> ofShards(List<DatabaseClient> shards, String table) {
+        return Flux.fromIterable(shards)
+                .flatMap(shard -> shard.execute(aggregate(table))
+                        .map((row, metadata) -> new long[]{longValue(row.get("total")), longValue(row.get("versions")),
+                                longValue(row.get("last_id"))})
+                        .one())
+                .reduce((a, b) -> new long[]{a[0] + b[0], a[1] + b[1], Math.max(a[2], b[2])})
+                .map(totals -> totals[0] + "." + totals[1] + "." + totals[2]);
+    }
+
+    static String aggregate(String table) {
+        return "select count(*) as total, coalesce(sum(row_version), 0) as versions, coalesce(max(id), 0) as last_id"
+                + " from " + table;
+    }
+
+    private static long longValue(Object value) {
+        return ((Number) value).longValue();
+    }
+}
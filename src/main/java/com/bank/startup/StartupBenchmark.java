@@ -0,0 +1,58 @@
+package com.bank.startup;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Measures how long the JVM took to become ready and how long the first request took once it was, then exits.
+ * <p>
+ * Used by the {@code cdsArchive} and {@code startupBenchmark} Gradle tasks: the training run that dumps the AppCDS
+ * archive goes through startup and the first request, so the classes both of them load end up in the archive.
+ */
+@Slf4j
+@Getter
+@Component
+@ConditionalOnProperty(prefix = "bank.startup", name = "benchmark", havingValue = "true")
+public class StartupBenchmark implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Value("${bank.startup.first-request-path:/v1/accounts}")
+    private String firstRequestPath;
+
+    @Value("${bank.startup.exit-after-benchmark:true}")
+    private boolean exitAfterBenchmark;
+
+    private long readyMillis;
+
+    private long firstRequestMillis;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+        long start = System.nanoTime();
+        WebClient.create("http://localhost:" + port)
+                .get()
+                .uri(firstRequestPath)
+                .retrieve()
+                .toBodilessEntity()
+                .block(Duration.ofSeconds(30));
+        firstRequestMillis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("Startup benchmark: ready after {} ms, first request to {} took {} ms",
+                readyMillis, firstRequestPath, firstRequestMillis);
+        if (exitAfterBenchmark) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
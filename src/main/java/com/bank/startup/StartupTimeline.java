@@ -0,0 +1,131 @@
+package com.bank.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how long every bean took to create, from instantiation until its initialization callbacks completed,
+ * and logs the slowest ones once the application is ready.
+ * <p>
+ * Creating a bean includes creating the dependencies it pulls in, so each bean gets both its total time and its
+ * self time without them. Beans created before this post processor was registered, such as other post processors,
+ * are not recorded.
+ */
+@Slf4j
+public class StartupTimeline implements InstantiationAwareBeanPostProcessor, ApplicationListener<ApplicationReadyEvent> {
+
+    private final int reportSize;
+
+    private final Map<String, BeanTiming> timings = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public StartupTimeline(int reportSize) {
+        this.reportSize = reportSize;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        creating.get().push(new Frame(beanName, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Frame> stack = creating.get();
+        Frame frame = stack.peek();
+        // objects produced by a FactoryBean come through here again under the factory's name
+        if (frame == null || !frame.beanName.equals(beanName)) {
+            return bean;
+        }
+        stack.pop();
+        long total = System.nanoTime() - frame.start;
+        if (!stack.isEmpty()) {
+            stack.peek().dependencies += total;
+        }
+        timings.computeIfAbsent(beanName, name -> new BeanTiming(name, bean.getClass().getName()))
+                .add(total, total - frame.dependencies);
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        List<BeanTiming> slowest = report();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Startup timeline: ready after %d ms, %d beans created, slowest by self time:%n",
+                ManagementFactory.getRuntimeMXBean().getUptime(), timings.size()));
+        for (BeanTiming timing : slowest) {
+            report.append(String.format("  %6d ms self %6d ms total  %s (%s)%n", timing.getSelfMillis(),
+                    timing.getTotalMillis(), timing.getBeanName(), timing.getBeanClass()));
+        }
+        log.info(report.toString());
+    }
+
+    /**
+     * @return the beans that took the longest to create, excluding the time spent on their dependencies
+     */
+    public List<BeanTiming> report() {
+        List<BeanTiming> sorted = new ArrayList<>(timings.values());
+        sorted.sort(Comparator.comparingLong(BeanTiming::getSelfNanos).reversed());
+        return sorted.subList(0, Math.min(reportSize, sorted.size()));
+    }
+
+    public static final class BeanTiming {
+        private final String beanName;
+        private final String beanClass;
+        private long totalNanos;
+        private long selfNanos;
+
+        private BeanTiming(String beanName, String beanClass) {
+            this.beanName = beanName;
+            this.beanClass = beanClass;
+        }
+
+        private synchronized void add(long total, long self) {
+            totalNanos += total;
+            selfNanos += self;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public String getBeanClass() {
+            return beanClass;
+        }
+
+        public synchronized long getSelfNanos() {
+            return selfNanos;
+        }
+
+        public synchronized long getSelfMillis() {
+            return selfNanos / 1_000_000;
+        }
+
+        public synchronized long getTotalMillis() {
+            return totalNanos / 1_000_000;
+        }
+    }
+
+    private static final class Frame {
+        private final String beanName;
+        private final long start;
+        private long dependencies;
+
+        private Frame(String beanName, long start) {
+            this.beanName = beanName;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.bank.striping;
+
+import com.bank.exception.AccountNotFoundException;
+import com.bank.model.domain.Account;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.writebehind.BalanceWriteBehind;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Sub-account striping of hot accounts.
+ * <p>
+ * Every credit to a plain account updates the account row, so concurrent credits queue on that row's lock. A
+ * striped account also has {@code stripes} rows in {@code account_stripe}, and each credit adds to one of them
+ * picked at random, so up to that many credits go through at once. Its balance is the amount of the account row
+ * plus the amounts of its stripes, read in one statement so a rebalance in progress is never seen half done.
+ * <p>
+ * Rebalancing moves what the stripes collected into the account row, one account per transaction. Each stripe is
+ * reduced by exactly the amount that was read from it rather than set to zero, so credits landing meanwhile stay
+ * in their stripe. Customers with their accounts add up the stripes in their join. Not supported together with
+ * sharded accounts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.striping", name = "enabled", havingValue = "true")
+public class AccountStripes {
+
+    private static final String CREDIT_STRIPE = "update account_stripe set amount = amount + :amount" +
+            " where account_id = :id and stripe = :stripe";
+
+    private static final String SELECT_BALANCE = "select coalesce(a.amount, 0) + coalesce(sum(s.amount), 0) as balance" +
+            " from accounts a left join account_stripe s on s.account_id = a.id where a.id = :id group by a.id, a.amount";
+
+    private static final String SELECT_COLLECTED = "select stripe, amount from account_stripe" +
+            " where account_id = :id and amount <> 0";
+
+    private static final String ADD_TO_ACCOUNT = "update accounts set amount = coalesce(amount, 0) + $1 where id = $2";
+
+    private static final String SUBTRACT_FROM_STRIPE = "update account_stripe set amount = amount - $1" +
+            " where account_id = $2 and stripe = $3";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private StripingProperties properties;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    @Autowired(required = false)
+    private BalanceWriteBehind writeBehind;
+
+    @PostConstruct
+    public void checkSupported() {
+        if (shards != null) {
+            throw new IllegalStateException("Striped accounts are not supported with sharded accounts");
+        }
+        if (properties.getStripes() < 1) {
+            throw new IllegalStateException("bank.striping.stripes must be at least 1");
+        }
+    }
+
+    public static boolean isStriped(Account account) {
+        return account.getStripes() != null && account.getStripes() > 0;
+    }
+
+    /**
+     * Adds {@code amount} to a random one of the {@code stripes} stripes of an account.
+     *
+     * @return the number of stripes updated, 0 when the account has been re-striped since its stripe count was read
+     */
+    public Mono<Integer> credit(Integer id, int stripes, BigDecimal amount) {
+        return databaseClient.execute(CREDIT_STRIPE)
+                .bind("amount", amount)
+                .bind("id", id)
+                .bind("stripe", ThreadLocalRandom.current().nextInt(stripes))
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Replaces the amount of a striped {@code account} by the amount of its row plus its stripes.
+     */
+    public Mono<Account> withStripes(Account account) {
+        return databaseClient.execute(SELECT_BALANCE)
+                .bind("id", account.getId())
+                .map((row, metadata) -> row.get("balance", BigDecimal.class))
+                .one()
+                .map(balance -> {
+                    account.setAmount(balance);
+                    return account;
+                })
+                .defaultIfEmpty(account);
+    }
+
+    /**
+     * Extends the row version of an account so it changes whenever one of its stripes does. Credits only raise
+     * the stripes and a rebalance raises the row version, so the sum of the stripes is enough.
+     */
+    public Mono<String> version(Integer id, String storedVersion) {
+        return version(databaseClient.execute("select count(*) as total, coalesce(sum(amount), 0) as collected" +
+                " from account_stripe where account_id = :id")
+                .bind("id", id), storedVersion);
+    }
+
+    /**
+     * Extends the version of the accounts of a customer so it changes whenever one of their stripes does.
+     */
+    public Mono<String> versionOfCustomer(Integer customerId, String storedVersion) {
+        return version(databaseClient.execute("select count(*) as total, coalesce(sum(s.amount), 0) as collected" +
+                " from account_stripe s join accounts a on a.id = s.account_id where a.customer_id = :id")
+                .bind("id", customerId), storedVersion);
+    }
+
+    /**
+     * Extends the version of all accounts so it changes whenever any stripe does.
+     */
+    public Mono<String> version(String storedVersion) {
+        return version(databaseClient.execute("select count(*) as total, coalesce(sum(amount), 0) as collected from account_stripe"),
+                storedVersion);
+    }
+
+    /**
+     * Moves what the stripes of every account collected into the account rows.
+     *
+     * @return the number of accounts rebalanced
+     */
+    public Mono<Long> rebalance() {
+        return databaseClient.execute("select distinct account_id from account_stripe where amount <> 0")
+                .map((row, metadata) -> ((Number) row.get("account_id")).intValue())
+                .all()
+                .collectList()
+                .flatMapIterable(ids -> ids)
+                .concatMap(this::rebalance)
+                .filter(moved -> moved)
+                .count();
+    }
+
+    /**
+     * Moves what the stripes of one account collected into the account row. Also writes a buffered balance of
+     * the account first, since a later flush would overwrite the row.
+     *
+     * @return whether there was anything to move
+     */
+    public Mono<Boolean> rebalance(Integer id) {
+        if (id == null) {
+            return Mono.just(false);
+        }
+        Mono<Void> flushed = writeBehind == null ? Mono.empty() : writeBehind.flush(id);
+        return flushed.then(databaseClient.execute(SELECT_COLLECTED)
+                .bind("id", id)
+                .map((row, metadata) -> new Collected(((Number) row.get("stripe")).intValue(), row.get("amount", BigDecimal.class)))
+                .all()
+                .collectList())
+                .flatMap(collected -> collected.isEmpty() ? Mono.just(false)
+                        : inTransaction(connection -> move(connection, id, collected)).thenReturn(true));
+    }
+
+    /**
+     * Splits an account into {@code count} stripes, or turns it back into a plain account when {@code count} is
+     * 0. What the old stripes collected moves into the account row; the stripes are locked meanwhile, and credits
+     * waiting for them find no row afterwards and go to the account row instead.
+     */
+    public Mono<Void> stripe(Integer id, int count) {
+        Mono<Void> flushed = writeBehind == null ? Mono.empty() : writeBehind.flush(id);
+        return flushed.then(inTransaction(connection -> execute(connection.createStatement("update accounts set stripes = $1 where id = $2")
+                .bind(0, count)
+                .bind(1, id))
+                .flatMap(updated -> updated == 0 ? Mono.<List<Collected>>error(new AccountNotFoundException(id))
+                        : Flux.from(connection.createStatement("select stripe, amount from account_stripe where account_id = $1 for update")
+                        .bind(0, id)
+                        .execute())
+                        .flatMap(result -> result.map((row, metadata) ->
+                                new Collected(((Number) row.get("stripe")).intValue(), row.get("amount", BigDecimal.class))))
+                        .collectList())
+                .flatMap(collected -> collected.isEmpty() ? Mono.<Long>empty() : move(connection, id, collected))
+                .then(Mono.defer(() -> execute(connection.createStatement("delete from account_stripe where account_id = $1")
+                        .bind(0, id))))
+                .then(Mono.defer(() -> count == 0 ? Mono.<Long>empty() : execute(insertStripes(connection, id, count))))))
+                .then();
+    }
+
+    /**
+     * Drops the stripes of a deleted account.
+     */
+    public Mono<Integer> forget(Integer id) {
+        return databaseClient.execute("delete from account_stripe where account_id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Long> move(Connection connection, Integer id, List<Collected> collected) {
+        BigDecimal total = BigDecimal.ZERO;
+        Statement subtract = connection.createStatement(SUBTRACT_FROM_STRIPE);
+        for (int i = 0; i < collected.size(); i++) {
+            if (i > 0) {
+                subtract.add();
+            }
+            Collected stripe = collected.get(i);
+            total = total.add(stripe.amount);
+            subtract.bind(0, stripe.amount)
+                    .bind(1, id)
+                    .bind(2, stripe.stripe);
+        }
+        return execute(connection.createStatement(ADD_TO_ACCOUNT)
+                .bind(0, total)
+                .bind(1, id))
+                .then(Mono.defer(() -> execute(subtract)));
+    }
+
+    private static Statement insertStripes(Connection connection, Integer id, int count) {
+        Statement statement = connection.createStatement("insert into account_stripe (account_id, stripe, amount) values ($1, $2, 0)");
+        for (int stripe = 0; stripe < count; stripe++) {
+            if (stripe > 0) {
+                statement.add();
+            }
+            statement.bind(0, id)
+                    .bind(1, stripe);
+        }
+        return statement;
+    }
+
+    private static Mono<String> version(DatabaseClient.GenericExecuteSpec stripes, String storedVersion) {
+        return stripes
+                .map((row, metadata) -> ((Number) row.get("total")).longValue() == 0 ? storedVersion
+                        : storedVersion + "-s" + row.get("collected", BigDecimal.class).toPlainString())
+                .one()
+                .defaultIfEmpty(storedVersion);
+    }
+
+    private <T> Mono<T> inTransaction(Function<Connection, Mono<T>> work) {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.beginTransaction())
+                        .then(Mono.defer(() -> work.apply(connection)))
+                        .flatMap(value -> Mono.from(connection.commitTransaction()).thenReturn(value))
+                        .switchIfEmpty(Mono.defer(() -> Mono.from(connection.commitTransaction()).then(Mono.empty())))
+                        .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e))),
+                Connection::close);
+    }
+
+    private static Mono<Long> execute(Statement statement) {
+        return Flux.from(statement.execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, (total, updated) -> total + updated);
+    }
+
+    private static final class Collected {
+        private final int stripe;
+        private final BigDecimal amount;
+
+        private Collected(int stripe, BigDecimal amount) {
+            this.stripe = stripe;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.striping;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.striping")
+public class StripingProperties {
+
+    /**
+     * Number of stripe rows a hot account is split into.
+     */
+    private int stripes = 8;
+
+    /**
+     * Ids of the accounts to stripe, e.g. {@code bank.striping.hot-accounts=1,42}. Accounts left out of the list
+     * are folded back into plain accounts.
+     */
+    private List<Integer> hotAccounts = new ArrayList<>();
+
+    /**
+     * How often the amounts collected by the stripes are moved into the account rows.
+     */
+    private long rebalanceIntervalMs = 1_000;
+}
@@ -0,0 +1,144 @@
+package com.bank.validation;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import com.bank.validation.currency.CurrencyValidator;
+import com.bank.validation.iban.IbanValidator;
+import com.bank.validation.phonenumber.PhoneNumberValidator;
+import com.bank.validation.ssn.SsnValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Validates large lists of {@link AccountDto} and {@link CustomerDto} for bulk imports.
+ * <p>
+ * The lists are cut into batches that are validated in parallel on a dedicated scheduler with one thread per
+ * core, and the results come back in input order. Each DTO is checked by rules that call the validator engines
+ * directly instead of going through Bean Validation, which would look up the constraints of every object
+ * reflectively. The rules and their messages mirror the constraint annotations on the DTOs and have to be kept in
+ * line with them.
+ */
+@Component
+public class BulkValidator {
+
+    private final int batchSize;
+    private final int parallelism;
+    private final Scheduler scheduler;
+
+    @Autowired(required = false)
+    private ValidationCache cache;
+
+    public BulkValidator(@Value("${bank.bulk-validation.batch-size:256}") int batchSize,
+                         @Value("${bank.bulk-validation.parallelism:0}") int parallelism) {
+        this.batchSize = batchSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.scheduler = Schedulers.newParallel("bulk-validation", this.parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * @return the sorted error messages of every account, in input order, empty for valid accounts
+     */
+    public Flux<List<String>> validateAccounts(List<AccountDto> accounts) {
+        return validate(accounts, this::accountErrors);
+    }
+
+    /**
+     * @return the sorted error messages of every customer, in input order, empty for valid customers
+     */
+    public Flux<List<String>> validateCustomers(List<CustomerDto> customers) {
+        return validate(customers, this::customerErrors);
+    }
+
+    public List<String> accountErrors(AccountDto account) {
+        List<String> errors = new ArrayList<>(2);
+        if (account.getIban() == null) {
+            errors.add("Iban can not be null");
+            errors.add("Invalid iban");
+        } else if (!valid(IbanValidator.class, account.getIban(), IbanValidator::check)) {
+            errors.add("Invalid iban");
+        }
+        if (account.getCurrency() == null || !CurrencyValidator.check(account.getCurrency())) {
+            errors.add("Invalid currency");
+        }
+        if (account.getAmount() != null && account.getAmount().compareTo(BigDecimal.ZERO) < 0) {
+            errors.add("Balance can not be negative");
+        }
+        return sorted(errors);
+    }
+
+    public List<String> customerErrors(CustomerDto customer) {
+        List<String> errors = new ArrayList<>(2);
+        String fullName = customer.getFullName();
+        if (fullName == null) {
+            errors.add("Full name can not be null");
+        } else if (fullName.length() < 5 || fullName.length() > 20) {
+            errors.add("Full name must be in range (5, 20) characters");
+        }
+        String address = customer.getAddress();
+        if (address == null) {
+            errors.add("Address can not be null");
+        } else if (address.length() < 3 || address.length() > 50) {
+            errors.add("Address must be in range (3, 50) characters");
+        }
+        if (customer.getPhoneNumber() == null) {
+            errors.add("Phone number can not be null");
+            errors.add("Invalid phone number");
+        } else if (!valid(PhoneNumberValidator.class, customer.getPhoneNumber(), PhoneNumberValidator::check)) {
+            errors.add("Invalid phone number");
+        }
+        if (customer.getSsn() == null) {
+            errors.add("Ssn can not be null");
+            errors.add("Invalid ssn information");
+        } else if (!valid(SsnValidator.class, customer.getSsn(), SsnValidator::check)) {
+            errors.add("Invalid ssn information");
+        }
+        return sorted(errors);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private <T> Flux<List<String>> validate(List<T> items, Function<T, List<String>> rules) {
+        return Flux.fromIterable(items)
+                .buffer(batchSize)
+                .flatMapSequential(batch -> Mono.fromCallable(() -> {
+                    List<List<String>> results = new ArrayList<>(batch.size());
+                    for (T item : batch) {
+                        results.add(item == null ? Collections.singletonList("Item can not be null") : rules.apply(item));
+                    }
+                    return results;
+                }).subscribeOn(scheduler), parallelism)
+                .flatMapIterable(results -> results);
+    }
+
+    private boolean valid(Class<?> validator, String value, Predicate<String> check) {
+        return cache == null ? check.test(value) : cache.isValid(validator, value, check);
+    }
+
+    private static List<String> sorted(List<String> errors) {
+        if (errors.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.sort(errors);
+        return errors;
+    }
+}
@@ -0,0 +1,139 @@
+package com.bank.validation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of validation results keyed by validator and value, for payloads that repeat the same IBANs,
+ * SSNs and phone numbers.
+ * <p>
+ * Entries are spread over independently locked segments, each evicting its least recently used entry once it is
+ * full, so concurrent validations rarely contend on the same lock. Validators that are not created by Spring, or
+ * that run while the cache is disabled, validate every value themselves.
+ * <p>
+ * The cache keeps the validated values themselves, which include SSNs, IBANs and phone numbers, on the heap for as
+ * long as they stay cached, so it is off unless {@code bank.validation-cache.enabled} is set.
+ */
+@Component
+@ConditionalOnProperty(prefix = "bank.validation-cache", name = "enabled", havingValue = "true")
+public class ValidationCache implements MeterBinder {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ValidationCache(@Value("${bank.validation-cache.max-size:100000}") int maxSize) {
+        int segmentSize = Math.max(1, maxSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * @return the cached result of {@code validator} for {@code value}, computing it with {@code check} on a miss
+     */
+    public boolean isValid(Class<?> validator, String value, Predicate<String> check) {
+        Key key = new Key(validator, value);
+        // the high bits pick the segment, so the maps inside a segment still see well spread low bits
+        Segment segment = segments[(key.hashCode() * 0x9E3779B9) >>> 28];
+        Boolean cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        boolean valid = check.test(value);
+        synchronized (segment) {
+            segment.put(key, valid);
+        }
+        return valid;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bank.validation.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("bank.validation.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        Gauge.builder("bank.validation.cache.hit.ratio", this, ValidationCache::getHitRatio).register(registry);
+        Gauge.builder("bank.validation.cache.size", this, ValidationCache::size).register(registry);
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, Boolean> {
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class Key {
+        private final Class<?> validator;
+        private final String value;
+        private final int hash;
+
+        private Key(Class<?> validator, String value) {
+            this.validator = validator;
+            this.value = value;
+            this.hash = 31 * validator.hashCode() + value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return validator == other.validator && Objects.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
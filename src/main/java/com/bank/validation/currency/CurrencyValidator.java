@@ -13,12 +13,19 @@ public class CurrencyValidator implements ConstraintValidator<CurrencyValidation
         if (value == null) {
             return false;
         }
-        try {
-            Currency.valueOf(value);
-            return true;
-        } catch (Exception e) {
-            log.error("Error : {}", e.getMessage());
+        if (!check(value)) {
+            log.error("Error : Unsupported currency {}", value);
             return false;
         }
+        return true;
+    }
+
+    public static boolean check(String value) {
+        for (Currency currency : Currency.values()) {
+            if (currency.name().equals(value)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -1,21 +1,32 @@
 package com.bank.validation.iban;
 
+import com.bank.validation.ValidationCache;
+import org.springframework.beans.factory.annotation.Autowired;
+
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
+import java.util.Locale;
 
 public class IbanValidator implements ConstraintValidator<IbanValidation, String> {
+
+    @Autowired(required = false)
+    private ValidationCache cache;
+
     @Override
     public boolean isValid(String iban, ConstraintValidatorContext context) {
         if (iban == null) {
             return false;
         }
+        return cache == null ? check(iban) : cache.isValid(IbanValidator.class, iban, IbanValidator::check);
+    }
+
+    public static boolean check(String iban) {
         int ibanMinSize = 15;
         int ibanMaxSize = 34;
         long ibanMax = 999999999;
         long ibanModulus = 97;
 
-        String trimmed = iban.replaceAll(" ", "");
-        trimmed = trimmed.trim();
+        String trimmed = normalize(iban).trim();
 
         if (trimmed.length() < ibanMinSize || trimmed.length() > ibanMaxSize) {
             return false;
@@ -41,4 +52,8 @@ public class IbanValidator implements ConstraintValidator<IbanValidation, String
 
         return total % ibanModulus == 1;
     }
+
+    public static String normalize(String iban) {
+        return iban.replace(" ", "").toUpperCase(Locale.ROOT);
+    }
 }
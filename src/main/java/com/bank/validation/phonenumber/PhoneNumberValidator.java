@@ -1,24 +1,31 @@
 package com.bank.validation.phonenumber;
 
+import com.bank.validation.ValidationCache;
+import org.springframework.beans.factory.annotation.Autowired;
+
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class PhoneNumberValidator implements ConstraintValidator<PhoneNumberValidation, String> {
+
+    private static final Pattern PHONE_NUMBER = Pattern.compile(
+            "^(\\+\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$"
+                    + "|^(\\+\\d{1,3}( )?)?(\\d{3}[ ]?){2}\\d{3}$"
+                    + "|^(\\+\\d{1,3}( )?)?(\\d{3}[ ]?)(\\d{2}[ ]?){2}\\d{2}$");
+
+    @Autowired(required = false)
+    private ValidationCache cache;
+
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
         if (value == null) {
             return false;
         }
-        String patterns
-                = "^(\\+\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$"
-                + "|^(\\+\\d{1,3}( )?)?(\\d{3}[ ]?){2}\\d{3}$"
-                + "|^(\\+\\d{1,3}( )?)?(\\d{3}[ ]?)(\\d{2}[ ]?){2}\\d{2}$";
-
-        Pattern pattern = Pattern.compile(patterns);
-        Matcher matcher = pattern.matcher(value);
+        return cache == null ? check(value) : cache.isValid(PhoneNumberValidator.class, value, PhoneNumberValidator::check);
+    }
 
-        return matcher.matches();
+    public static boolean check(String value) {
+        return PHONE_NUMBER.matcher(value).matches();
     }
 }
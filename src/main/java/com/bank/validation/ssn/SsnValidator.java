@@ -1,20 +1,28 @@
 package com.bank.validation.ssn;
 
+import com.bank.validation.ValidationCache;
+import org.springframework.beans.factory.annotation.Autowired;
+
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class SsnValidator implements ConstraintValidator<SsnValidation, String> {
+
+    private static final Pattern SSN = Pattern.compile("^(?!000|666)[0-8][0-9]{2}-(?!00)[0-9]{2}-(?!0000)[0-9]{4}$");
+
+    @Autowired(required = false)
+    private ValidationCache cache;
+
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
         if (value == null) {
             return false;
         }
+        return cache == null ? check(value) : cache.isValid(SsnValidator.class, value, SsnValidator::check);
+    }
 
-        String regex = "^(?!000|666)[0-8][0-9]{2}-(?!00)[0-9]{2}-(?!0000)[0-9]{4}$";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(value);
-        return matcher.matches();
+    public static boolean check(String value) {
+        return SSN.matcher(value).matches();
     }
 }
@@ -0,0 +1,313 @@
+package com.bank.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of buffered balance updates, split into numbered segment files.
+ * <p>
+ * Appends are group committed: all records queued while the previous batch was being written go to the file in
+ * one write and one {@code fsync}, and every append completes only once its record is on disk. Each record is
+ * framed by its length and a CRC32, so a record torn by a crash is recognized and ignored along with anything
+ * after it. All file access happens on a single thread, which also orders appends against segment rotation.
+ */
+@Slf4j
+public class BalanceJournal implements Closeable {
+
+    static final byte AMOUNT = 1;
+
+    static final byte FLUSHED = 2;
+
+    private static final String SEGMENT_PREFIX = "balance-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+
+    private final Scheduler scheduler = Schedulers.newSingle("balance-journal");
+
+    private final Queue<PendingAppend> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private FileChannel channel;
+
+    private long segment;
+
+    public BalanceJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads every record of the existing segments, oldest first.
+     */
+    public List<Record> read() throws IOException {
+        Files.createDirectories(directory);
+        List<Record> records = new ArrayList<>();
+        for (Path path : segments()) {
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path));
+            while (content.remaining() >= Integer.BYTES) {
+                int length = content.getInt();
+                if (length <= 0 || content.remaining() < length + Integer.BYTES) {
+                    log.warn("Ignoring a torn record at the end of {}", path);
+                    break;
+                }
+                byte[] payload = new byte[length];
+                content.get(payload);
+                if (content.getInt() != (int) crc(payload)) {
+                    log.warn("Ignoring a corrupt record and what follows it in {}", path);
+                    break;
+                }
+                records.add(Record.decode(ByteBuffer.wrap(payload)));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the existing segments and starts writing a new one. Only to be called once their records are in the
+     * database.
+     */
+    public void start() throws IOException {
+        List<Path> existing = segments();
+        for (Path path : existing) {
+            segment = Math.max(segment, number(path));
+        }
+        open(segment + 1);
+        for (Path path : existing) {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * @return completes once {@code records} are on disk
+     */
+    public Mono<Void> append(List<Record> records) {
+        if (records.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.create(sink -> {
+            queue.add(new PendingAppend(records, sink));
+            if (wip.getAndIncrement() == 0) {
+                scheduler.schedule(this::drain);
+            }
+        });
+    }
+
+    /**
+     * Continues in a new segment. Every append that completed before the returned {@code Mono} is in an older
+     * segment.
+     */
+    public Mono<Void> rotate() {
+        return Mono.<Void>fromCallable(() -> {
+            channel.close();
+            open(segment + 1);
+            return null;
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Deletes all segments except the one being written.
+     */
+    public Mono<Void> deleteOlderSegments() {
+        return Mono.<Void>fromCallable(() -> {
+            for (Path path : segments()) {
+                if (number(path) < segment) {
+                    Files.delete(path);
+                }
+            }
+            return null;
+        }).subscribeOn(scheduler);
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.dispose();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * The latest amount of every account whose latest amount has not been flushed to the database, by account id.
+     */
+    public static Map<Integer, Record> unflushed(List<Record> records) {
+        Map<Integer, Record> amounts = new HashMap<>();
+        Map<Integer, Long> flushed = new HashMap<>();
+        for (Record record : records) {
+            if (record.type == AMOUNT) {
+                amounts.merge(record.accountId, record, (a, b) -> a.sequence >= b.sequence ? a : b);
+            } else {
+                flushed.merge(record.accountId, record.sequence, Math::max);
+            }
+        }
+        amounts.entrySet().removeIf(entry -> entry.getValue().sequence <= flushed.getOrDefault(entry.getKey(), 0L));
+        return amounts;
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            List<PendingAppend> batch = new ArrayList<>();
+            PendingAppend append;
+            while ((append = queue.poll()) != null) {
+                batch.add(append);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void write(List<PendingAppend> batch) {
+        try {
+            List<byte[]> frames = new ArrayList<>();
+            int size = 0;
+            for (PendingAppend append : batch) {
+                for (Record record : append.records) {
+                    byte[] payload = record.encode();
+                    frames.add(payload);
+                    size += payload.length + 2 * Integer.BYTES;
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            for (byte[] payload : frames) {
+                buffer.putInt(payload.length).put(payload).putInt((int) crc(payload));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            batch.forEach(append -> append.sink.success());
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write to the balance journal : {}", e.getMessage());
+            batch.forEach(append -> append.sink.error(e));
+            // a partly written batch would hide every later record of this segment from the replay
+            try {
+                channel.close();
+                open(segment + 1);
+            } catch (IOException reopenFailure) {
+                log.error("Could not start a new balance journal segment : {}", reopenFailure.getMessage());
+            }
+        }
+    }
+
+    private void open(long number) throws IOException {
+        segment = number;
+        channel = FileChannel.open(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Either the new amount of an account, or the marker that the amount with that sequence number (and all older
+     * ones) reached the database.
+     */
+    public static final class Record {
+        private final byte type;
+        private final long sequence;
+        private final int accountId;
+        private final BigDecimal amount;
+
+        private Record(byte type, long sequence, int accountId, BigDecimal amount) {
+            this.type = type;
+            this.sequence = sequence;
+            this.accountId = accountId;
+            this.amount = amount;
+        }
+
+        public static Record amount(long sequence, int accountId, BigDecimal amount) {
+            return new Record(AMOUNT, sequence, accountId, amount);
+        }
+
+        public static Record flushed(long sequence, int accountId) {
+            return new Record(FLUSHED, sequence, accountId, null);
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getAccountId() {
+            return accountId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        private byte[] encode() {
+            byte[] amountBytes = amount == null ? new byte[0] : amount.toPlainString().getBytes(StandardCharsets.US_ASCII);
+            return ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES + amountBytes.length)
+                    .put(type)
+                    .putLong(sequence)
+                    .putInt(accountId)
+                    .put(amountBytes)
+                    .array();
+        }
+
+        private static Record decode(ByteBuffer payload) {
+            byte type = payload.get();
+            long sequence = payload.getLong();
+            int accountId = payload.getInt();
+            byte[] amountBytes = new byte[payload.remaining()];
+            payload.get(amountBytes);
+            return new Record(type, sequence, accountId,
+                    type == AMOUNT ? new BigDecimal(new String(amountBytes, StandardCharsets.US_ASCII)) : null);
+        }
+    }
+
+    private static final class PendingAppend {
+        private final List<Record> records;
+        private final MonoSink<Void> sink;
+
+        private PendingAppend(List<Record> records, MonoSink<Void> sink) {
+            this.records = records;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.bank.writebehind;
+
+import com.bank.model.domain.Account;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.r2dbc.connectionfactory.init.ConnectionFactoryInitializer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in write-behind buffer for balance-only account updates.
+ * <p>
+ * The latest amount of every account is kept in a {@link ConcurrentHashMap}, whose bins act as lock stripes, and
+ * newer updates replace older ones by sequence number without locking. Every update is appended to the
+ * {@link BalanceJournal} and only acknowledged once it is on disk. Every {@code flush-interval-ms}, or as soon as
+ * {@code flush-threshold} accounts are buffered, all buffered amounts are written as one batched update in one
+ * transaction, after which the journal records that they reached the database and drops the segments it no
+ * longer needs. On startup, amounts the journal has but the database may not are written before anything else.
+ * <p>
+ * Like the IBAN lookup filter, the buffer only sees updates made through this instance, so it must stay disabled
+ * when several instances share the same database. Not supported together with sharded accounts.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "bank.write-behind", name = "enabled", havingValue = "true")
+public class BalanceWriteBehind {
+
+    private static final String UPDATE_AMOUNT = "update accounts set amount = $1 where id = $2";
+
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private WriteBehindProperties properties;
+
+    @Autowired(required = false)
+    private ShardedAccountRepository shards;
+
+    // not used directly: the replay writes to the accounts table, which has to be migrated first
+    @Autowired
+    private ConnectionFactoryInitializer initializer;
+
+    private final Map<Integer, Buffered> buffered = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Scheduler flushScheduler = Schedulers.newBoundedElastic(1, Integer.MAX_VALUE, "balance-flush");
+
+    private BalanceJournal journal;
+
+    private Disposable periodicFlush;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (shards != null) {
+            throw new IllegalStateException("Write-behind balances are not supported with sharded accounts");
+        }
+        journal = new BalanceJournal(Paths.get(properties.getJournalDirectory()));
+        List<BalanceJournal.Record> records = journal.read();
+        SortedMap<Integer, BigDecimal> unflushed = new TreeMap<>();
+        BalanceJournal.unflushed(records).forEach((id, record) -> unflushed.put(id, record.getAmount()));
+        if (!unflushed.isEmpty()) {
+            write(unflushed).block();
+            log.info("Replayed {} buffered balances from the journal", unflushed.size());
+        }
+        sequence.set(records.stream().mapToLong(BalanceJournal.Record::getSequence).max().orElse(0));
+        journal.start();
+        periodicFlush = Flux.interval(Duration.ofMillis(properties.getFlushIntervalMs()))
+                .onBackpressureDrop()
+                .concatMap(tick -> flush().onErrorResume(e -> {
+                    log.error("Could not flush buffered balances : {}", e.getMessage());
+                    return Mono.empty();
+                }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        periodicFlush.dispose();
+        try {
+            flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+        } catch (RuntimeException e) {
+            log.error("Buffered balances stay in the journal until the next start : {}", e.getMessage());
+        }
+        flushScheduler.dispose();
+        journal.close();
+    }
+
+    /**
+     * Buffers the amount of {@code account}, which must otherwise be unchanged from the stored account.
+     *
+     * @return {@code account}, once the new amount is in the journal
+     */
+    public Mono<Account> put(Account account) {
+        Buffered entry = new Buffered(sequence.incrementAndGet(), copy(account));
+        buffered.merge(account.getId(), entry, (current, next) -> next.sequence > current.sequence ? next : current);
+        if (buffered.size() >= properties.getFlushThreshold() && flushRequested.compareAndSet(false, true)) {
+            flush().subscribe(null, e -> log.error("Could not flush buffered balances : {}", e.getMessage()));
+        }
+        return journal.append(Collections.singletonList(
+                BalanceJournal.Record.amount(entry.sequence, account.getId(), account.getAmount())))
+                .thenReturn(account);
+    }
+
+    /**
+     * @return a copy of the account as last buffered, or {@code null} when nothing is buffered for it
+     */
+    public Account get(Integer id) {
+        Buffered entry = id == null ? null : buffered.get(id);
+        return entry == null ? null : copy(entry.account);
+    }
+
+    /**
+     * Replaces the amount of a stored {@code account} by its buffered amount, if there is one.
+     */
+    public Account withBufferedAmount(Account account) {
+        Buffered entry = account.getId() == null ? null : buffered.get(account.getId());
+        if (entry != null) {
+            account.setAmount(entry.account.getAmount());
+        }
+        return account;
+    }
+
+    /**
+     * Extends a stored row version so it changes whenever the buffered amount of the account does.
+     */
+    public String version(Integer id, String storedVersion) {
+        Buffered entry = id == null ? null : buffered.get(id);
+        return entry == null ? storedVersion : storedVersion + "-b" + entry.sequence;
+    }
+
+    /**
+     * Extends the version of the accounts of a customer so it changes whenever one of their buffered amounts does.
+     */
+    public String versionOfCustomer(Integer customerId, String storedVersion) {
+        long latest = buffered.values().stream()
+                .filter(entry -> customerId != null && customerId.equals(entry.account.getCustomerId()))
+                .mapToLong(entry -> entry.sequence)
+                .max()
+                .orElse(0);
+        return latest == 0 ? storedVersion : storedVersion + "-b" + latest;
+    }
+
+    /**
+     * Extends the version of a set of accounts so it changes whenever any buffered amount does.
+     */
+    public String version(String storedVersion) {
+        return buffered.isEmpty() ? storedVersion : storedVersion + "-b" + sequence.get();
+    }
+
+    /**
+     * Writes the buffered amount of one account right away, before a regular write to the account. Runs after any
+     * flush of all accounts in progress, which could otherwise write an older amount of the account after this one.
+     */
+    public Mono<Void> flush(Integer id) {
+        if (id == null || !buffered.containsKey(id)) {
+            // nothing buffered means no flush in progress still has to write the account either
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> flushBuffered(id).block())
+                .subscribeOn(flushScheduler);
+    }
+
+    /**
+     * Writes every buffered amount. Flushes of all accounts and of single accounts run one at a time.
+     *
+     * @return the number of accounts written
+     */
+    public Mono<Integer> flush() {
+        return Mono.fromCallable(() -> {
+            flushRequested.set(false);
+            return flushBuffered().block();
+        }).subscribeOn(flushScheduler);
+    }
+
+    public int size() {
+        return buffered.size();
+    }
+
+    private Mono<Void> flushBuffered(Integer id) {
+        Buffered entry = buffered.get(id);
+        if (entry == null) {
+            return Mono.empty();
+        }
+        return write(new TreeMap<>(Collections.singletonMap(id, entry.account.getAmount())))
+                .then(journal.append(Collections.singletonList(BalanceJournal.Record.flushed(entry.sequence, id))))
+                .then(Mono.fromRunnable(() -> buffered.remove(id, entry)));
+    }
+
+    /**
+     * Every amount appended to the journal before the rotation is also in the map by then, so once the snapshot
+     * taken after the rotation is in the database, all older segments can go.
+     */
+    private Mono<Integer> flushBuffered() {
+        if (buffered.isEmpty()) {
+            return Mono.just(0);
+        }
+        return journal.rotate().then(Mono.defer(() -> {
+            List<Buffered> batch = new ArrayList<>(buffered.values());
+            SortedMap<Integer, BigDecimal> amounts = new TreeMap<>();
+            List<BalanceJournal.Record> markers = new ArrayList<>(batch.size());
+            for (Buffered entry : batch) {
+                amounts.put(entry.account.getId(), entry.account.getAmount());
+                markers.add(BalanceJournal.Record.flushed(entry.sequence, entry.account.getId()));
+            }
+            return write(amounts)
+                    .then(journal.append(markers))
+                    .then(Mono.fromRunnable(() -> batch.forEach(entry -> buffered.remove(entry.account.getId(), entry))))
+                    .then(journal.deleteOlderSegments())
+                    .thenReturn(batch.size());
+        }));
+    }
+
+    /**
+     * Updates the amounts in id order, in one transaction.
+     */
+    private Mono<Long> write(SortedMap<Integer, BigDecimal> amounts) {
+        return Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.beginTransaction())
+                        .then(Mono.defer(() -> update(connection, amounts)))
+                        .flatMap(updated -> Mono.from(connection.commitTransaction()).thenReturn(updated))
+                        .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e))),
+                Connection::close);
+    }
+
+    private Mono<Long> update(Connection connection, SortedMap<Integer, BigDecimal> amounts) {
+        Statement statement = connection.createStatement(UPDATE_AMOUNT);
+        boolean first = true;
+        for (Map.Entry<Integer, BigDecimal> amount : amounts.entrySet()) {
+            if (!first) {
+                statement.add();
+            }
+            first = false;
+            statement.bind(0, amount.getValue())
+                    .bind(1, amount.getKey());
+        }
+        return Flux.from(statement.execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, (total, updated) -> total + updated);
+    }
+
+    private static Account copy(Account account) {
+        return Account.builder()
+                .id(account.getId())
+                .iban(account.getIban())
+                .currency(account.getCurrency())
+                .amount(account.getAmount())
+                .customerId(account.getCustomerId())
+                .issuedAt(account.getIssuedAt())
+                .rowVersion(account.getRowVersion())
+                .stripes(account.getStripes())
+                .build();
+    }
+
+    private static final class Buffered {
+        private final long sequence;
+        private final Account account;
+
+        private Buffered(long sequence, Account account) {
+            this.sequence = sequence;
+            this.account = account;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.writebehind;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "bank.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * How often buffered balances are written to the database.
+     */
+    private long flushIntervalMs = 50;
+
+    /**
+     * Number of accounts with a buffered balance that triggers a flush before the interval is up.
+     */
+    private int flushThreshold = 1_000;
+
+    /**
+     * Directory of the journal segments. It must survive a restart of the instance, so not a temporary directory.
+     */
+    private String journalDirectory = "data/balance-journal";
+}
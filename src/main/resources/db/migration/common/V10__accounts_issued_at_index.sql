@@ -0,0 +1 @@
+create index if not exists idx_accounts_issued_at on accounts (issued_at);
@@ -0,0 +1,10 @@
+-- A striped account keeps part of its balance in account_stripe rows, so concurrent credits lock one of
+-- several rows instead of the account row. accounts.stripes is the number of stripe rows, 0 for a plain account.
+alter table accounts add column stripes smallint default 0 not null;
+
+create table if not exists account_stripe (
+    account_id integer        not null,
+    stripe     smallint       not null,
+    amount     numeric(19, 4) default 0 not null,
+    primary key (account_id, stripe)
+);
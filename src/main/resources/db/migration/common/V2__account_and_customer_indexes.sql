@@ -0,0 +1,3 @@
+create index if not exists idx_accounts_customer_id on accounts (customer_id);
+create unique index if not exists ux_accounts_iban on accounts (iban);
+create index if not exists idx_customer_ssn on customer (ssn);
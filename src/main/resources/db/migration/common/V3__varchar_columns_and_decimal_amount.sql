@@ -0,0 +1,7 @@
+alter table customer alter column fullName set data type varchar(20);
+alter table customer alter column address set data type varchar(50);
+alter table customer alter column phone_number set data type varchar(20);
+alter table customer alter column ssn set data type varchar(11);
+
+alter table accounts alter column iban set data type varchar(42);
+alter table accounts alter column amount set data type numeric(19, 4);
@@ -0,0 +1,5 @@
+alter table accounts add column row_version bigint default 0 not null;
+alter table customer add column row_version bigint default 0 not null;
+
+create index if not exists idx_accounts_id_row_version on accounts (id, row_version);
+create index if not exists idx_customer_id_row_version on customer (id, row_version);
@@ -0,0 +1,8 @@
+alter table accounts add column interest_accrued_on date;
+
+create table if not exists batch_checkpoint (
+    job_name   varchar(50) primary key not null,
+    run_date   date        not null,
+    last_id    bigint      not null,
+    updated_at timestamp   default current_timestamp
+);
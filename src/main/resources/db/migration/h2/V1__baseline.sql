@@ -0,0 +1,17 @@
+create table if not exists customer (
+    id bigint auto_increment PRIMARY KEY NOT NULL,
+    fullName varchar(250),
+    address varchar(250),
+    phone_number varchar(250),
+    ssn varchar(33)
+);
+
+create table if not exists accounts(
+    id bigint auto_increment primary key not null,
+    iban varchar(34),
+    currency varchar(6),
+    amount double,
+    customer_id integer,
+    issued_at date,
+    constraint fk_customer foreign key (customer_id) references customer(id)
+);
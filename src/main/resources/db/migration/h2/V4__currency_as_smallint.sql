@@ -0,0 +1,4 @@
+alter table accounts add column currency_code smallint;
+update accounts set currency_code = case trim(currency) when 'RON' then 1 when 'EUR' then 2 when 'DOLLAR' then 3 end;
+alter table accounts drop column currency;
+alter table accounts alter column currency_code rename to currency;
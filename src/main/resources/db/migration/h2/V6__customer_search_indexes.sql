@@ -0,0 +1,3 @@
+create index if not exists idx_customer_fullname on customer (fullName);
+create index if not exists idx_customer_address on customer (address);
+create index if not exists idx_customer_phone_number on customer (phone_number);
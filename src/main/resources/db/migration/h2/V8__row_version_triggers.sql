@@ -0,0 +1,2 @@
+create trigger if not exists accounts_row_version before update on accounts for each row call "com.bank.config.RowVersionTrigger";
+create trigger if not exists customer_row_version before update on customer for each row call "com.bank.config.RowVersionTrigger";
@@ -0,0 +1,92 @@
+-- Only applied with bank.database.partition-accounts=true, needs PostgreSQL 13 or newer. Recorded in
+-- schema_version_postgresql_partitioned and applied after the shared migrations, whenever partitioning is turned on.
+-- Rebuilds accounts as a table partitioned by month of issued_at, with every column the shared migrations gave it
+-- by then. Months get their partition from create_accounts_partition, which the application calls ahead of time;
+-- rows of any other month land in accounts_default. The primary key of a partitioned table has to contain
+-- issued_at, so iban uniqueness is kept by account_iban instead of a unique index. An accounts table that is
+-- already partitioned is left as it is.
+
+create or replace function create_accounts_partition(month date) returns void as
+'declare
+    first_day date := date_trunc(''month'', month)::date;
+    partition_name text := ''accounts_'' || to_char(first_day, ''YYYY_MM'');
+begin
+    if to_regclass(partition_name) is null then
+        execute format(''create table %I partition of accounts for values from (%L) to (%L)'',
+                partition_name, first_day, (first_day + interval ''1 month'')::date);
+    end if;
+end;'
+language plpgsql;
+
+create or replace function partition_accounts() returns void as
+'declare
+    stored_columns text;
+begin
+    if exists (select 1 from pg_partitioned_table where partrelid = ''accounts''::regclass) then
+        return;
+    end if;
+
+    alter table accounts rename to accounts_unpartitioned;
+    alter sequence accounts_id_seq owned by none;
+    update accounts_unpartitioned set issued_at = current_date where issued_at is null;
+
+    create table accounts (like accounts_unpartitioned including defaults including constraints including generated)
+        partition by range (issued_at);
+    alter table accounts alter column issued_at set default current_date;
+    alter table accounts alter column issued_at set not null;
+    alter table accounts add constraint pk_accounts primary key (id, issued_at);
+    alter table accounts add constraint fk_accounts_customer foreign key (customer_id) references customer (id);
+    alter sequence accounts_id_seq owned by accounts.id;
+
+    create table accounts_default partition of accounts default;
+    perform create_accounts_partition(month::date)
+    from (select distinct date_trunc(''month'', issued_at) as month from accounts_unpartitioned) months;
+    perform create_accounts_partition(current_date);
+
+    select string_agg(quote_ident(column_name), '', '' order by ordinal_position) into stored_columns
+    from information_schema.columns
+    where table_schema = current_schema() and table_name = ''accounts_unpartitioned'' and is_generated = ''NEVER'';
+    execute format(''insert into accounts (%s) select %s from accounts_unpartitioned'', stored_columns, stored_columns);
+
+    drop table accounts_unpartitioned;
+end;'
+language plpgsql;
+
+select partition_accounts();
+
+drop function partition_accounts();
+
+create index if not exists idx_accounts_customer_id on accounts (customer_id);
+create index if not exists idx_accounts_id_row_version on accounts (id, row_version);
+create index if not exists idx_accounts_issued_at on accounts (issued_at);
+create index if not exists idx_accounts_iban_normalized on accounts (iban_normalized);
+
+drop trigger if exists accounts_row_version on accounts;
+create trigger accounts_row_version before update on accounts for each row execute procedure increment_row_version();
+
+create table if not exists account_iban (
+    iban_normalized varchar(34) primary key not null,
+    account_id      integer     not null
+);
+
+insert into account_iban (iban_normalized, account_id)
+select iban_normalized, id from accounts where iban_normalized is not null
+on conflict (iban_normalized) do nothing;
+
+create or replace function claim_account_iban() returns trigger as
+'begin
+    if tg_op in (''UPDATE'', ''DELETE'') and old.iban_normalized is not null
+            and (tg_op = ''DELETE'' or old.iban_normalized is distinct from new.iban_normalized) then
+        delete from account_iban where iban_normalized = old.iban_normalized;
+    end if;
+    if tg_op in (''INSERT'', ''UPDATE'') and new.iban_normalized is not null
+            and (tg_op = ''INSERT'' or old.iban_normalized is distinct from new.iban_normalized) then
+        insert into account_iban (iban_normalized, account_id) values (new.iban_normalized, new.id);
+    end if;
+    return null;
+end;'
+language plpgsql;
+
+drop trigger if exists accounts_claim_iban on accounts;
+create trigger accounts_claim_iban after insert or update or delete on accounts
+    for each row execute procedure claim_account_iban();
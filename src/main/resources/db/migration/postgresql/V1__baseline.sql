@@ -0,0 +1,17 @@
+create table if not exists customer (
+    id serial primary key NOT NULL,
+    fullName char(20),
+    address char(50),
+    phone_number char(10),
+    ssn char(11)
+);
+
+create table if not exists accounts(
+    id serial primary key not null,
+    iban char(34),
+    currency char(6),
+    amount numeric,
+    customer_id integer,
+    issued_at date,
+    constraint fk_customer foreign key(customer_id) references customer(id)
+);
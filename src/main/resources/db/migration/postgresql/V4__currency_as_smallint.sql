@@ -0,0 +1,2 @@
+alter table accounts alter column currency set data type smallint
+    using case trim(currency) when 'RON' then 1 when 'EUR' then 2 when 'DOLLAR' then 3 end;
@@ -0,0 +1,4 @@
+alter table accounts add column iban_normalized varchar(34) generated always as (upper(replace(iban, ' ', ''))) stored;
+
+drop index if exists ux_accounts_iban;
+create unique index if not exists ux_accounts_iban_normalized on accounts (iban_normalized);
@@ -0,0 +1,8 @@
+create extension if not exists pg_trgm;
+
+create index if not exists idx_customer_fullname_trgm on customer using gin (fullName gin_trgm_ops);
+create index if not exists idx_customer_address_trgm on customer using gin (address gin_trgm_ops);
+create index if not exists idx_customer_phone_number_prefix on customer (phone_number varchar_pattern_ops);
+
+drop index if exists idx_customer_ssn;
+create index if not exists idx_customer_ssn_prefix on customer (ssn varchar_pattern_ops);
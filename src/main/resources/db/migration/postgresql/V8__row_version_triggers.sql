@@ -0,0 +1,8 @@
+create or replace function increment_row_version() returns trigger as
+'begin new.row_version := old.row_version + 1; return new; end;'
+language plpgsql;
+
+drop trigger if exists accounts_row_version on accounts;
+create trigger accounts_row_version before update on accounts for each row execute procedure increment_row_version();
+drop trigger if exists customer_row_version on customer;
+create trigger customer_row_version before update on customer for each row execute procedure increment_row_version();
@@ -0,0 +1 @@
+alter table accounts drop constraint if exists fk_customer;
@@ -0,0 +1,20 @@
+-- Only inserts rows that are missing, so seeding a database that was not cleaned first is harmless.
+insert into customer (fullName, address, phone_number, ssn)
+select 'Florin Dumitrescu', 'Oradea', '2224445558', '343-25-5859'
+where not exists (select 1 from customer where fullName = 'Florin Dumitrescu' and ssn = '343-25-5859');
+insert into customer (fullName, address, phone_number, ssn)
+select 'Sorin Bontea', 'Satu Mare', '46645345', '354-12-7742'
+where not exists (select 1 from customer where fullName = 'Sorin Bontea' and ssn = '354-12-7742');
+insert into customer (fullName, address, phone_number, ssn)
+select 'Catalin Scarlatescu', 'Bucuresti', '46645345', '354-12-7742'
+where not exists (select 1 from customer where fullName = 'Catalin Scarlatescu' and ssn = '354-12-7742');
+
+insert into accounts (iban, currency, amount, customer_id, issued_at)
+select 'GB82WEST12345698765432', 2, 444, 1, date '2022-05-07'
+where not exists (select 1 from accounts where iban = 'GB82WEST12345698765432');
+insert into accounts (iban, currency, amount, customer_id, issued_at)
+select 'GB03BARC20038041157768', 1, 200, 1, date '2022-05-22'
+where not exists (select 1 from accounts where iban = 'GB03BARC20038041157768');
+insert into accounts (iban, currency, amount, customer_id, issued_at)
+select 'GB23BARC20039541126414', 1, 3500, 2, date '2022-05-22'
+where not exists (select 1 from accounts where iban = 'GB23BARC20039541126414');
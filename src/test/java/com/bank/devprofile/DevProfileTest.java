@@ -29,8 +29,8 @@ public class DevProfileTest {
         Assertions.assertTrue(Objects.requireNonNull(ex.getMessage()).startsWith("Error creating bean with name" +
                 " 'initializer' defined in class path resource [com/bank/config/DatabaseConnectionConfiguration.class]:" +
                 " Invocation of init method failed; nested exception is org.springframework.data.r2dbc.connectionfactor" +
-                "y.init.ScriptStatementFailedException: Failed to execute SQL script statement #3 of class path re" +
-                "source [data.sql]: create table customer ( id bigint a"));
+                "y.init.UncategorizedScriptException: Failed to execute database script; nested exception is org.spr" +
+                "ingframework.dao.DataAccessResourceFailureException: Failed to obtain R2DBC Connection"));
 
 
     }
@@ -1,5 +1,6 @@
 package com.bank.integration.account;
 
+import com.bank.controller.BankMediaTypes;
 import com.bank.exception.ExceptionResponse;
 import com.bank.model.dto.AccountDto;
 import org.junit.jupiter.api.DisplayName;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -17,6 +19,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @AutoConfigureWebTestClient
@@ -27,7 +31,7 @@ public class AccountControllerIntegrationTest {
     private WebTestClient client;
 
     List<AccountDto> accounts = Arrays.asList(
-            AccountDto.builder().id(1).customerId(1).currency("EUR").iban("GB82WEST12345698765432").amount(new BigDecimal("20.0")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build(),
+            AccountDto.builder().id(1).customerId(1).currency("EUR").iban("GB82WEST12345698765432").amount(new BigDecimal("20.0000")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build(),
             AccountDto.builder().id(2).customerId(2).currency("DDD").iban("WHAAT").amount(new BigDecimal(100)).issuedAt(LocalDate.now()).build(),
             AccountDto.builder().id(3).customerId(1).currency("EUR").iban("GB91BARC20031863198927").amount(new BigDecimal(300)).issuedAt(LocalDate.of(2023, 1, 2)).build()
     );
@@ -149,6 +153,26 @@ public class AccountControllerIntegrationTest {
 
     }
 
+    @Test
+    @DisplayName("Get all accounts as Smile")
+    public void getAllAccountsAsSmile_ShouldReturnAllAccounts() {
+        MediaType smile = MediaType.parseMediaType(BankMediaTypes.APPLICATION_SMILE_VALUE);
+
+        client
+                .get()
+                .uri("/v1/accounts")
+                .accept(smile)
+                .exchange()
+                .expectHeader()
+                .contentType(smile)
+                .expectBodyList(AccountDto.class)
+                .consumeWith(exchangeResult -> {
+                    List<AccountDto> response = exchangeResult.getResponseBody();
+                    assertNotNull(response);
+                    assertFalse(response.isEmpty());
+                });
+    }
+
     @Test
     @DisplayName("Get account by id")
     public void getAccountById_shouldReturnAccountById() {
@@ -222,4 +246,84 @@ public class AccountControllerIntegrationTest {
 
     }
 
+    @Test
+    @DisplayName("Get account by id with a matching ETag")
+    public void getAccountByIdWithMatchingETag_shouldReturnNotModified() {
+        String etag = client.get()
+                .uri("/v1/accounts/1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(AccountDto.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(etag);
+
+        client.get()
+                .uri("/v1/accounts/1")
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Get all accounts with a matching ETag")
+    public void getAllAccountsWithMatchingETag_shouldReturnNotModified() {
+        String etag = client.get()
+                .uri("/v1/accounts")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(AccountDto.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(etag);
+
+        client.get()
+                .uri("/v1/accounts")
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Account ETag changes after an update")
+    public void updateAccount_shouldChangeETag() {
+        String etag = client.get()
+                .uri("/v1/accounts/1")
+                .exchange()
+                .returnResult(AccountDto.class)
+                .getResponseHeaders()
+                .getETag();
+        AccountDto accountToUpdate = AccountDto.builder()
+                .id(1)
+                .customerId(1)
+                .iban("GB78BARC20035383547217")
+                .amount(new BigDecimal("30.0"))
+                .issuedAt(LocalDate.of(2020, Month.JANUARY, 3))
+                .currency("RON")
+                .build();
+        client.put()
+                .uri("/v1/accounts")
+                .bodyValue(accountToUpdate)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        client.get()
+                .uri("/v1/accounts/1")
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .value(HttpHeaders.ETAG, newETag -> assertNotEquals(etag, newETag));
+    }
+
 }
@@ -0,0 +1,69 @@
+package com.bank.integration.account;
+
+import com.bank.batch.AccountPartitionMaintenance;
+import com.bank.model.dto.AccountDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = "bank.database.partition-accounts=true")
+@DirtiesContext
+public class AccountIssuedRangeIntegrationTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private AccountPartitionMaintenance partitionMaintenance;
+
+    @Test
+    @DisplayName("Accounts issued in a date range")
+    public void accountsIssuedInRange() {
+        assertEquals(Arrays.asList(1), issuedIds("2022-05-01", "2022-05-07"));
+        assertEquals(Arrays.asList(1, 2), issuedIds("2022-05-07", "2022-05-22"));
+        assertEquals(Collections.emptyList(), issuedIds("2022-05-08", "2022-05-21"));
+    }
+
+    @Test
+    @DisplayName("Accounts issued in an inverted date range")
+    public void invertedRangeIsRejected() {
+        client.get()
+                .uri("/v1/accounts/issued?from=2022-06-01&to=2022-05-01")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Partitioning is skipped on H2")
+    public void partitioningIsSkippedWithoutDatabaseSupport() {
+        assertFalse(partitionMaintenance.isSupported());
+    }
+
+    private List<Integer> issuedIds(String from, String to) {
+        return client.get()
+                .uri("/v1/accounts/issued?from={from}&to={to}", from, to)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(AccountDto.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .map(AccountDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -23,9 +23,9 @@ public class AccountServiceIntegrationTest {
     @Autowired
     private AccountService accountService;
 
-    AccountDto first = AccountDto.builder().id(1).iban("GB82WEST12345698765432").currency("EUR").customerId(1).amount(new BigDecimal("20.0")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build();
+    AccountDto first = AccountDto.builder().id(1).iban("GB82WEST12345698765432").currency("EUR").customerId(1).amount(new BigDecimal("20.0000")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build();
 
-    AccountDto second = AccountDto.builder().id(2).iban("GB03BARC20038041157768").currency("RON").customerId(1).amount(new BigDecimal("10.0")).issuedAt(LocalDate.of(2022, Month.MAY, 22)).build();
+    AccountDto second = AccountDto.builder().id(2).iban("GB03BARC20038041157768").currency("RON").customerId(1).amount(new BigDecimal("10.0000")).issuedAt(LocalDate.of(2022, Month.MAY, 22)).build();
 
     @Test
     public void getAllAccounts() {
@@ -61,6 +61,18 @@ public class AccountServiceIntegrationTest {
         StepVerifier.create(responseAccount).verifyErrorMessage("Account with id 55 was not found!");
     }
 
+    @Test
+    public void getAccountByIbanWrittenWithSpaces() {
+        Mono<AccountDto> responseAccount = accountService.getByIban("GB82 WEST 1234 5698 7654 32");
+        StepVerifier.create(responseAccount).expectNext(first).verifyComplete();
+    }
+
+    @Test
+    public void getNonExistingAccountByIban() {
+        Mono<AccountDto> responseAccount = accountService.getByIban("GB91BARC20031863198927");
+        StepVerifier.create(responseAccount).verifyErrorMessage("Account with iban GB91BARC20031863198927 was not found!");
+    }
+
     @Test
     public void deleteAccountById() {
         Mono<Integer> deletedAccount = accountService.deleteAccountById(1);
@@ -142,6 +154,35 @@ public class AccountServiceIntegrationTest {
         StepVerifier.create(accountsForCustomer).verifyErrorMessage("Customer with id 14 was not found!");
     }
 
+    @Test
+    public void getAccountsForCustomerInCurrency() {
+        Flux<AccountDto> accountsForCustomer = accountService.getAccountsForCustomer(1, "RON");
+        StepVerifier.create(accountsForCustomer)
+                .assertNext(account -> {
+                    assertEquals("RON", account.getCurrency());
+                    assertEquals(new BigDecimal("99.5000"), account.getAmount());
+                })
+                .assertNext(account -> assertEquals(second, account))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getAccountsForCustomerInUnsupportedCurrency() {
+        StepVerifier.create(accountService.getAccountsForCustomer(1, "XYZ"))
+                .verifyErrorMessage("Unsupported currency XYZ");
+    }
+
+    @Test
+    public void getCustomerBalance() {
+        StepVerifier.create(accountService.getCustomerBalance(1, "EUR"))
+                .assertNext(balance -> {
+                    assertEquals("EUR", balance.getCurrency());
+                    assertEquals(new BigDecimal("22.0101"), balance.getAmount());
+                    assertEquals(2, balance.getAccounts());
+                })
+                .verifyComplete();
+    }
+
     @Test
     public void testUpdatePatch() {
         AccountDto dto = AccountDto.builder().id(1).currency("DOLLAR").build();
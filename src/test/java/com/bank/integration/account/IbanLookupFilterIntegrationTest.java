@@ -0,0 +1,88 @@
+package com.bank.integration.account;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.service.IbanLookupFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = {
+        "bank.iban-filter.enabled=true",
+        "bank.iban-filter.expected-insertions=1000",
+        "bank.iban-filter.false-positive-probability=0.000001"})
+@DirtiesContext
+public class IbanLookupFilterIntegrationTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private IbanLookupFilter filter;
+
+    @BeforeEach
+    public void waitUntilLoaded() throws InterruptedException {
+        for (int i = 0; i < 100 && !filter.isLoaded(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(filter.isLoaded());
+    }
+
+    @Test
+    public void findsStoredIbans() {
+        assertTrue(filter.mightExist("GB82WEST12345698765432"));
+
+        client.get()
+                .uri("/v1/accounts/iban/{iban}", "GB82 WEST 1234 5698 7654 32")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(AccountDto.class)
+                .consumeWith(result -> assertEquals(1, result.getResponseBody().getId()));
+    }
+
+    @Test
+    public void rejectsUnknownIbansWithoutALookup() {
+        assertFalse(filter.mightExist("GB33BUKB20201555555555"));
+
+        client.get()
+                .uri("/v1/accounts/iban/{iban}", "GB33BUKB20201555555555")
+                .exchange()
+                .expectStatus()
+                .is4xxClientError();
+    }
+
+    @Test
+    public void findsIbansOfNewAccounts() {
+        client.post()
+                .uri("/v1/accounts")
+                .bodyValue(AccountDto.builder()
+                        .customerId(1)
+                        .iban("GB91BARC20031863198927")
+                        .currency("EUR")
+                        .amount(new BigDecimal("5"))
+                        .issuedAt(LocalDate.of(2023, 1, 2))
+                        .build())
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        assertTrue(filter.mightExist("GB91BARC20031863198927"));
+        client.get()
+                .uri("/v1/accounts/iban/{iban}", "GB91BARC20031863198927")
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+}
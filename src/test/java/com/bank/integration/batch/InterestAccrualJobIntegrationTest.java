@@ -0,0 +1,88 @@
+package com.bank.integration.batch;
+
+import com.bank.batch.InterestAccrualJob;
+import com.bank.model.dto.AccountDto;
+import com.bank.service.AccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.test.annotation.DirtiesContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "bank.interest.enabled=true",
+        "bank.interest.annual-rates.EUR=0.0365",
+        "bank.interest.annual-rates.RON=0.073",
+        "bank.interest.chunk-size=1",
+        "bank.interest.parallelism=2"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InterestAccrualJobIntegrationTest {
+
+    private static final LocalDate RUN_DATE = LocalDate.of(2030, 1, 1);
+
+    @Autowired
+    private InterestAccrualJob job;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    public void accruesDailyInterestByCurrency() {
+        StepVerifier.create(job.run(RUN_DATE)).expectNext(2L).verifyComplete();
+
+        assertEquals(new BigDecimal("20.0020"), amountOf(1));
+        assertEquals(new BigDecimal("10.0020"), amountOf(2));
+    }
+
+    @Test
+    public void accruesOnlyOncePerDay() {
+        StepVerifier.create(job.run(RUN_DATE)).expectNext(2L).verifyComplete();
+        StepVerifier.create(job.run(RUN_DATE)).expectNext(0L).verifyComplete();
+
+        assertEquals(new BigDecimal("20.0020"), amountOf(1));
+    }
+
+    @Test
+    public void resumesAfterCheckpoint() {
+        databaseClient.execute("insert into batch_checkpoint (job_name, run_date, last_id) values ('interest-accrual', :runDate, 1)")
+                .bind("runDate", RUN_DATE)
+                .fetch()
+                .rowsUpdated()
+                .block();
+
+        StepVerifier.create(job.run(RUN_DATE)).expectNext(1L).verifyComplete();
+
+        assertEquals(new BigDecimal("20.0000"), amountOf(1));
+        assertEquals(new BigDecimal("10.0020"), amountOf(2));
+    }
+
+    @Test
+    public void keepsCreditsMadeWhileAccruing() {
+        StepVerifier.create(Mono.when(job.run(RUN_DATE),
+                Flux.range(0, 20).flatMap(i -> accountService.credit(1, BigDecimal.ONE), 4)))
+                .verifyComplete();
+
+        // interest on anything from 20 to 40, depending on how many credits landed before the accrual
+        BigDecimal amount = amountOf(1);
+        assertTrue(amount.compareTo(new BigDecimal("40.0020")) >= 0, amount.toPlainString());
+        assertTrue(amount.compareTo(new BigDecimal("40.0040")) <= 0, amount.toPlainString());
+        StepVerifier.create(job.run(RUN_DATE)).expectNext(0L).verifyComplete();
+    }
+
+    private BigDecimal amountOf(int id) {
+        AccountDto account = accountService.getById(id).block();
+        return account.getAmount();
+    }
+}
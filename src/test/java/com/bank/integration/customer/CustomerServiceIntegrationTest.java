@@ -10,6 +10,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -58,6 +60,69 @@ public class CustomerServiceIntegrationTest {
         assertEquals("Id must not be null!", ex.getMessage());
     }
 
+    @Test
+    public void getCustomerWithAccounts() {
+        StepVerifier.create(customerService.getCustomerWithAccounts(1))
+                .assertNext(customer -> {
+                    assertEquals("Dan Badea1", customer.getFullName());
+                    assertEquals(2, customer.getAccounts().size());
+                    assertEquals("GB82WEST12345698765432", customer.getAccounts().get(0).getIban());
+                    assertEquals("EUR", customer.getAccounts().get(0).getCurrency());
+                    assertEquals(Integer.valueOf(1), customer.getAccounts().get(1).getCustomerId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void getCustomerWithoutAccounts() {
+        StepVerifier.create(customerService.getCustomerWithAccounts(2))
+                .assertNext(customer -> assertEquals(0, customer.getAccounts().size()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getNonExistingCustomerWithAccounts() {
+        StepVerifier.create(customerService.getCustomerWithAccounts(14))
+                .verifyErrorMessage("Customer with id 14 was not found!");
+    }
+
+    @Test
+    public void getAllCustomersWithAccounts() {
+        StepVerifier.create(customerService.getAllCustomersWithAccounts())
+                .assertNext(customer -> assertEquals(2, customer.getAccounts().size()))
+                .assertNext(customer -> assertEquals(0, customer.getAccounts().size()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getCustomersByIds() {
+        StepVerifier.create(customerService.getCustomersByIds(Arrays.asList(2, 14)))
+                .expectNext(CustomerDto.builder().id(2).fullName("Sergiu Gal1").address("Satu Mare").phoneNumber("46645345").ssn("354-12-7742").build())
+                .verifyComplete();
+    }
+
+    @Test
+    public void searchCustomers() {
+        StepVerifier.create(customerService.searchCustomers("ser", 0, 20))
+                .expectNext(CustomerDto.builder().id(2).fullName("Sergiu Gal1").address("Satu Mare").phoneNumber("46645345").ssn("354-12-7742").build())
+                .verifyComplete();
+
+        StepVerifier.create(customerService.searchCustomers("3", 0, 20))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void searchCustomersAfterLastSeenId() {
+        StepVerifier.create(customerService.searchCustomers("3", 0, 1))
+                .expectNextMatches(customer -> customer.getId() == 1)
+                .verifyComplete();
+
+        StepVerifier.create(customerService.searchCustomers("3", 1, 1))
+                .expectNextMatches(customer -> customer.getId() == 2)
+                .verifyComplete();
+    }
+
     @Test
     public void updateCustomer() {
         CustomerDto userPresentInDbWithId1AndDifferentValues = CustomerDto.builder().id(1).fullName("Nae Bara").address("Cluj").phoneNumber("123456789").ssn("222-11-4444").build();
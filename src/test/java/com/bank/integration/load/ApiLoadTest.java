@@ -0,0 +1,242 @@
+package com.bank.integration.load;
+
+import com.bank.datagen.SyntheticData;
+import com.bank.model.domain.Account;
+import com.bank.model.domain.Customer;
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Load test of every {@code AccountController} and {@code CustomerController} route. Each scenario sends
+ * {@code bank.load.requests} requests with {@code bank.load.concurrency} in flight and prints throughput and
+ * latency percentiles.
+ * <p>
+ * By default it targets the application started for the test, filled with generated data. With
+ * {@code bank.load.base-url} it targets an already running instance instead, e.g. one loaded with
+ * {@code bank.datagen.customers=1000000}: {@code ./gradlew loadTest -Pbank.load.base-url=http://localhost:8080}.
+ * Existing customers and accounts are discovered through the API, writes use freshly generated rows.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"bank.datagen.enabled=true", "bank.datagen.customers=2000", "bank.datagen.chunk-size=250"})
+@DirtiesContext
+public class ApiLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("bank.load.requests", 200);
+    private static final int CONCURRENCY = Integer.getInteger("bank.load.concurrency", 16);
+    private static final int DISCOVERED_CUSTOMERS = Integer.getInteger("bank.load.discovered-customers", 10_000);
+    private static final int IDS_PER_MGET = 20;
+    private static final int ITEMS_PER_BULK = 50;
+
+    @LocalServerPort
+    private int port;
+
+    private WebClient client;
+
+    private final List<CustomerDto> customers = new ArrayList<>();
+
+    private final List<AccountDto> accounts = new ArrayList<>();
+
+    private final SyntheticData newRows = new SyntheticData(System.nanoTime(), LocalDate.now());
+
+    // ids above everything that was generated, so the IBANs of new accounts do not clash with stored ones
+    private final AtomicInteger newRowIds = new AtomicInteger(1_000_000_000 + (int) (System.currentTimeMillis() / 1000 % 1_000_000) * 1000);
+
+    @BeforeEach
+    public void discoverData() {
+        client = WebClient.create(System.getProperty("bank.load.base-url", "http://localhost:" + port));
+        client.get()
+                .uri("/v1/customers?expand=accounts")
+                .retrieve()
+                .bodyToFlux(CustomerDto.class)
+                .take(DISCOVERED_CUSTOMERS)
+                .doOnNext(customer -> {
+                    customers.add(customer);
+                    accounts.addAll(customer.getAccounts());
+                })
+                .blockLast();
+        assertFalse(customers.isEmpty());
+        assertFalse(accounts.isEmpty());
+    }
+
+    @Test
+    public void accountRoutes() {
+        LoadHarness harness = new LoadHarness(REQUESTS, CONCURRENCY);
+        List<LoadHarness.Report> reports = new ArrayList<>();
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts",
+                i -> client.get().uri("/v1/accounts"))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts/{id}",
+                i -> client.get().uri("/v1/accounts/{id}", randomAccount().getId()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("POST /v1/accounts/_mget",
+                i -> client.post().uri("/v1/accounts/_mget").bodyValue(randomAccountIds()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts/iban/{iban}",
+                i -> client.get().uri("/v1/accounts/iban/{iban}", randomAccount().getIban().replace(" ", "")))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts/customer/{id}",
+                i -> client.get().uri("/v1/accounts/customer/{id}", randomAccount().getCustomerId()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts/customer/{id}?currency",
+                i -> client.get().uri("/v1/accounts/customer/{id}?currency=EUR", randomAccount().getCustomerId()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts/customer/{id}/balance",
+                i -> client.get().uri("/v1/accounts/customer/{id}/balance?currency=RON", randomAccount().getCustomerId()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/accounts/issued",
+                i -> {
+                    LocalDate from = randomAccount().getIssuedAt().withDayOfMonth(1);
+                    return client.get().uri("/v1/accounts/issued?from={from}&to={to}", from, from.plusMonths(1).minusDays(1));
+                })));
+        reports.add(harness.run(LoadHarness.Scenario.of("PATCH /v1/accounts",
+                i -> client.patch().uri("/v1/accounts").bodyValue(withNewAmount(randomAccount())))));
+        reports.add(harness.run(LoadHarness.Scenario.of("PUT /v1/accounts",
+                i -> client.put().uri("/v1/accounts").bodyValue(withNewAmount(randomAccount())))));
+        reports.add(harness.run(LoadHarness.Scenario.of("POST /v1/accounts",
+                i -> client.post().uri("/v1/accounts").bodyValue(newAccount()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("POST /v1/accounts/_bulk",
+                i -> client.post().uri("/v1/accounts/_bulk").bodyValue(newAccounts()))));
+        reports.add(harness.run(LoadHarness.Scenario.prepared("DELETE /v1/accounts/{id}",
+                i -> createAccount(),
+                id -> client.delete().uri("/v1/accounts/{id}", id))));
+        assertNoErrors(reports);
+    }
+
+    @Test
+    public void customerRoutes() {
+        LoadHarness harness = new LoadHarness(REQUESTS, CONCURRENCY);
+        List<LoadHarness.Report> reports = new ArrayList<>();
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/customers",
+                i -> client.get().uri("/v1/customers"))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/customers?expand=accounts",
+                i -> client.get().uri("/v1/customers?expand=accounts"))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/customers/{id}",
+                i -> client.get().uri("/v1/customers/{id}", randomCustomer().getId()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/customers/{id}?expand=accounts",
+                i -> client.get().uri("/v1/customers/{id}?expand=accounts", randomCustomer().getId()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("POST /v1/customers/_mget",
+                i -> client.post().uri("/v1/customers/_mget").bodyValue(randomCustomerIds()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("GET /v1/customers/search",
+                i -> client.get().uri("/v1/customers/search?q={q}", randomCustomer().getFullName().substring(0, 3)))));
+        reports.add(harness.run(LoadHarness.Scenario.of("PUT /v1/customers",
+                i -> client.put().uri("/v1/customers").bodyValue(replacing(randomCustomer())))));
+        reports.add(harness.run(LoadHarness.Scenario.of("POST /v1/customers",
+                i -> client.post().uri("/v1/customers").bodyValue(newCustomer()))));
+        reports.add(harness.run(LoadHarness.Scenario.of("POST /v1/customers/_bulk",
+                i -> client.post().uri("/v1/customers/_bulk").bodyValue(newCustomers()))));
+        reports.add(harness.run(LoadHarness.Scenario.prepared("DELETE /v1/customers/{id}",
+                i -> createCustomer(),
+                id -> client.delete().uri("/v1/customers/{id}", id))));
+        assertNoErrors(reports);
+    }
+
+    private static void assertNoErrors(List<LoadHarness.Report> reports) {
+        for (LoadHarness.Report report : reports) {
+            assertEquals(0, report.getErrors(), report.getName());
+        }
+    }
+
+    private AccountDto randomAccount() {
+        return accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+    }
+
+    private CustomerDto randomCustomer() {
+        return customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+    }
+
+    private List<Integer> randomAccountIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < IDS_PER_MGET; i++) {
+            ids.add(randomAccount().getId());
+        }
+        return ids;
+    }
+
+    private List<Integer> randomCustomerIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < IDS_PER_MGET; i++) {
+            ids.add(randomCustomer().getId());
+        }
+        return ids;
+    }
+
+    private AccountDto withNewAmount(AccountDto account) {
+        return AccountDto.builder()
+                .id(account.getId())
+                .iban(account.getIban())
+                .currency(account.getCurrency())
+                .amount(newRows.account(newRowIds.incrementAndGet(), account.getCustomerId()).getAmount())
+                .customerId(account.getCustomerId())
+                .issuedAt(account.getIssuedAt())
+                .build();
+    }
+
+    /**
+     * A generated customer under the id of an existing one, so the update passes validation whatever is stored.
+     */
+    private CustomerDto replacing(CustomerDto customer) {
+        CustomerDto replacement = newCustomer();
+        replacement.setId(customer.getId());
+        return replacement;
+    }
+
+    private AccountDto newAccount() {
+        Account account = newRows.account(newRowIds.incrementAndGet(), randomCustomer().getId());
+        return AccountDto.builder()
+                .iban(account.getIban())
+                .currency(account.getCurrency().name())
+                .amount(account.getAmount())
+                .customerId(account.getCustomerId())
+                .issuedAt(account.getIssuedAt())
+                .build();
+    }
+
+    private List<AccountDto> newAccounts() {
+        List<AccountDto> batch = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_BULK; i++) {
+            batch.add(newAccount());
+        }
+        return batch;
+    }
+
+    private CustomerDto newCustomer() {
+        Customer customer = newRows.customer(newRowIds.incrementAndGet());
+        return CustomerDto.builder()
+                .fullName(customer.getFullName())
+                .address(customer.getAddress())
+                .phoneNumber(customer.getPhoneNumber())
+                .ssn(customer.getSsn())
+                .build();
+    }
+
+    private List<CustomerDto> newCustomers() {
+        List<CustomerDto> batch = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_BULK; i++) {
+            batch.add(newCustomer());
+        }
+        return batch;
+    }
+
+    private Mono<Integer> createAccount() {
+        return client.post().uri("/v1/accounts").bodyValue(newAccount())
+                .retrieve()
+                .bodyToMono(AccountDto.class)
+                .map(AccountDto::getId);
+    }
+
+    private Mono<Integer> createCustomer() {
+        return client.post().uri("/v1/customers").bodyValue(newCustomer())
+                .retrieve()
+                .bodyToMono(CustomerDto.class)
+                .map(CustomerDto::getId);
+    }
+}
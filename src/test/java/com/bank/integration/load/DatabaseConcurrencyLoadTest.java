@@ -0,0 +1,179 @@
+package com.bank.integration.load;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import com.bank.resilience.LimitedConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the database concurrency limiter against H2. Every statement is delayed by
+ * {@code bank.load.base-latency-ms}, plus {@code bank.load.latency-per-extra-statement-ms} for each statement
+ * running beyond {@code bank.load.database-capacity} at once, like a database that runs out of cores. The same
+ * account lookups are run with {@code bank.load.concurrency} in flight through a {@link LimitedConnectionFactory}
+ * and straight against the database, and the p99 latency of the admitted lookups has to stay well below that of
+ * the unlimited ones.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseConcurrencyLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("bank.load.requests", 2_000);
+    private static final int CONCURRENCY = Integer.getInteger("bank.load.concurrency", 64);
+    private static final int CAPACITY = Integer.getInteger("bank.load.database-capacity", 8);
+    private static final long BASE_LATENCY_MS = Long.getLong("bank.load.base-latency-ms", 2);
+    private static final long LATENCY_PER_EXTRA_STATEMENT_MS = Long.getLong("bank.load.latency-per-extra-statement-ms", 4);
+    private static final int ACCOUNTS = 1_000;
+
+    private LatencyInjectingConnectionFactory database;
+
+    @BeforeAll
+    public void createAccounts() {
+        database = new LatencyInjectingConnectionFactory(
+                ConnectionFactories.get("r2dbc:h2:mem:///concurrency-load?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"));
+        DatabaseClient databaseClient = DatabaseClient.create(database.delegate);
+        databaseClient.execute("create table if not exists load_accounts (id integer primary key, amount numeric(19, 4))")
+                .fetch().rowsUpdated().block();
+        databaseClient.execute("delete from load_accounts").fetch().rowsUpdated().block();
+        databaseClient.execute("insert into load_accounts select x, x / 7.0 from system_range(1, " + ACCOUNTS + ")")
+                .fetch().rowsUpdated().block();
+    }
+
+    @Test
+    public void limiterKeepsTheLatencyOfAdmittedReadsBounded() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 100, Duration.ofMillis(50), System::nanoTime);
+        DatabaseClient limited = DatabaseClient.create(new LimitedConnectionFactory(database, limiter));
+        DatabaseClient unlimited = DatabaseClient.create(database);
+
+        run(limited, REQUESTS / 2);
+        Load limitedLoad = run(limited, REQUESTS);
+        Load unlimitedLoad = run(unlimited, REQUESTS);
+
+        System.out.println("with the limiter (limit " + limiter.getLimit() + "): " + limitedLoad);
+        System.out.println("without the limiter: " + unlimitedLoad);
+        assertTrue(limitedLoad.latenciesNanos.size() > REQUESTS / 2, "with the limiter: " + limitedLoad);
+        assertTrue(limitedLoad.p99Ms() * 2 < unlimitedLoad.p99Ms(),
+                "with the limiter: " + limitedLoad + ", without: " + unlimitedLoad);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private Load run(DatabaseClient databaseClient, int requests) {
+        AtomicInteger rejected = new AtomicInteger();
+        List<Long> latencies = Flux.range(0, requests)
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return databaseClient.execute("select amount from load_accounts where id = :id")
+                            .bind("id", ThreadLocalRandom.current().nextInt(1, ACCOUNTS + 1))
+                            .fetch()
+                            .one()
+                            .map(row -> System.nanoTime() - start)
+                            .onErrorResume(ConcurrencyLimitExceededException.class, e -> {
+                                rejected.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, CONCURRENCY)
+                .collectSortedList()
+                .block();
+        return new Load(latencies, rejected.get());
+    }
+
+    private static final class Load {
+        private final List<Long> latenciesNanos;
+        private final int rejected;
+
+        private Load(List<Long> latenciesNanos, int rejected) {
+            this.latenciesNanos = latenciesNanos;
+            this.rejected = rejected;
+        }
+
+        private double p99Ms() {
+            if (latenciesNanos.isEmpty()) {
+                return 0;
+            }
+            int index = Math.min(latenciesNanos.size() - 1, (int) Math.ceil(latenciesNanos.size() * 0.99) - 1);
+            return latenciesNanos.get(index) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return latenciesNanos.size() + " done, " + rejected + " rejected, p99 " + p99Ms() + " ms";
+        }
+    }
+
+    /**
+     * Delays every statement by a latency that grows with the number of statements already running beyond the
+     * capacity of the database.
+     */
+    private static final class LatencyInjectingConnectionFactory implements ConnectionFactory {
+
+        private final ConnectionFactory delegate;
+        private final AtomicInteger running = new AtomicInteger();
+
+        private LatencyInjectingConnectionFactory(ConnectionFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.from(delegate.create()).map(this::delaying);
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+
+        private Connection delaying(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return result instanceof Statement ? delaying((Statement) result) : result;
+                    });
+        }
+
+        private Statement delaying(Statement statement) {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> {
+                        if ("execute".equals(method.getName())) {
+                            return Flux.defer(() -> {
+                                int concurrent = running.incrementAndGet();
+                                long latencyMs = BASE_LATENCY_MS + LATENCY_PER_EXTRA_STATEMENT_MS * Math.max(0, concurrent - CAPACITY);
+                                return Mono.delay(Duration.ofMillis(latencyMs))
+                                        .thenMany(Flux.from(statement.execute()))
+                                        .doFinally(signal -> running.decrementAndGet());
+                            });
+                        }
+                        Object result = invoke(statement, method, args);
+                        return result == statement ? proxy : result;
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
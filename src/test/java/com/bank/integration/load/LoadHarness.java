@@ -0,0 +1,129 @@
+package com.bank.integration.load;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Runs HTTP scenarios with a fixed number of requests in flight and reports throughput and latency percentiles.
+ * A request counts as failed unless it gets a 2xx response. Response bodies are read to the end but not kept.
+ */
+class LoadHarness {
+
+    private final int requests;
+
+    private final int concurrency;
+
+    LoadHarness(int requests, int concurrency) {
+        this.requests = requests;
+        this.concurrency = concurrency;
+    }
+
+    Report run(Scenario scenario) {
+        List<Integer> inputs = scenario.prepare == null
+                ? null
+                : Flux.range(0, requests).flatMapSequential(scenario.prepare::apply, concurrency).collectList().block();
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        long started = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> Mono.defer(() -> {
+                    long sent = System.nanoTime();
+                    return scenario.request.apply(inputs == null ? i : inputs.get(i))
+                            .exchange()
+                            .flatMap(response -> drain(response).thenReturn(response.statusCode().is2xxSuccessful()))
+                            .onErrorReturn(false)
+                            .doOnNext(ok -> {
+                                latencies[i] = System.nanoTime() - sent;
+                                if (!ok) {
+                                    errors.incrementAndGet();
+                                }
+                            });
+                }), concurrency)
+                .blockLast();
+        Report report = new Report(scenario.name, latencies, errors.get(), System.nanoTime() - started);
+        System.out.println(report);
+        return report;
+    }
+
+    private static Mono<Void> drain(ClientResponse response) {
+        return response.bodyToFlux(DataBuffer.class)
+                .doOnNext(DataBufferUtils::release)
+                .then();
+    }
+
+    static final class Scenario {
+        private final String name;
+        private final IntFunction<Mono<Integer>> prepare;
+        private final IntFunction<WebClient.RequestHeadersSpec<?>> request;
+
+        private Scenario(String name, IntFunction<Mono<Integer>> prepare, IntFunction<WebClient.RequestHeadersSpec<?>> request) {
+            this.name = name;
+            this.prepare = prepare;
+            this.request = request;
+        }
+
+        /**
+         * A scenario whose request {@code i} is built from {@code i} alone.
+         */
+        static Scenario of(String name, IntFunction<WebClient.RequestHeadersSpec<?>> request) {
+            return new Scenario(name, null, request);
+        }
+
+        /**
+         * A scenario that first creates one fixture per request, outside of the measurement, and builds request
+         * {@code i} from the id of fixture {@code i}.
+         */
+        static Scenario prepared(String name, IntFunction<Mono<Integer>> prepare,
+                                 IntFunction<WebClient.RequestHeadersSpec<?>> request) {
+            return new Scenario(name, prepare, request);
+        }
+    }
+
+    static final class Report {
+        private final String name;
+        private final long[] sortedLatencies;
+        private final int errors;
+        private final long elapsedNanos;
+
+        private Report(String name, long[] latencies, int errors, long elapsedNanos) {
+            this.name = name;
+            this.sortedLatencies = latencies.clone();
+            Arrays.sort(this.sortedLatencies);
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getErrors() {
+            return errors;
+        }
+
+        double throughput() {
+            return sortedLatencies.length * 1e9 / elapsedNanos;
+        }
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-36s %6d req %5d err %9.1f req/s   p50 %8.2f ms   p95 %8.2f ms   p99 %8.2f ms   max %8.2f ms",
+                    name, sortedLatencies.length, errors, throughput(), percentileMillis(50), percentileMillis(95),
+                    percentileMillis(99), percentileMillis(100));
+        }
+    }
+}
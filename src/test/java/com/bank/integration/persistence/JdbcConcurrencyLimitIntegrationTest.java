@@ -0,0 +1,48 @@
+package com.bank.integration.persistence;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import com.bank.repository.jdbc.JdbcAccountReader;
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "bank.persistence.mode=jdbc",
+        "bank.db-concurrency.enabled=true",
+        "bank.db-concurrency.initial-limit=4",
+        "bank.db-concurrency.min-limit=4",
+        "bank.db-concurrency.max-limit=4",
+        "bank.db-concurrency.max-queue-size=0"})
+public class JdbcConcurrencyLimitIntegrationTest {
+
+    @Autowired
+    private JdbcAccountReader jdbcAccountReader;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Test
+    public void jdbcReadsTakePermitsFromTheDatabaseLimiter() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire().block());
+        }
+
+        StepVerifier.create(jdbcAccountReader.findById(1))
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify();
+
+        permits.forEach(permit -> permit.release(false));
+        StepVerifier.create(jdbcAccountReader.findById(1))
+                .assertNext(account -> assertEquals(1, account.getId()))
+                .verifyComplete();
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.integration.persistence;
+
+import com.bank.model.domain.Account;
+import com.bank.model.domain.Customer;
+import com.bank.repository.jdbc.JdbcAccountReader;
+import com.bank.repository.jdbc.JdbcCustomerReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(properties = {"bank.persistence.mode=jdbc", "bank.persistence.jdbc.page-size=1"})
+public class JdbcReaderPagingIntegrationTest {
+
+    @Autowired
+    private JdbcAccountReader jdbcAccountReader;
+
+    @Autowired
+    private JdbcCustomerReader jdbcCustomerReader;
+
+    @Test
+    public void readsAllAccountsPageByPage() {
+        StepVerifier.create(jdbcAccountReader.findAll().map(Account::getId))
+                .expectNext(1, 2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void readsOnlyThePagesThatAreConsumed() {
+        StepVerifier.create(jdbcAccountReader.findAll().map(Account::getId), 1)
+                .expectNext(1)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void readsAllCustomersPageByPage() {
+        StepVerifier.create(jdbcCustomerReader.findAll().map(Customer::getId))
+                .expectNext(1, 2)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,85 @@
+package com.bank.integration.persistence;
+
+import com.bank.model.domain.Account;
+import com.bank.repository.CustomerRepository;
+import com.bank.repository.jdbc.JdbcAccountReader;
+import com.bank.repository.jdbc.JdbcCustomerReader;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.data.r2dbc.query.Criteria.where;
+
+@SpringBootTest(properties = "bank.persistence.mode=jdbc")
+public class PersistenceModeBenchmarkTest {
+
+    private static final int REQUESTS = 5_000;
+    private static final int CONCURRENCY = 32;
+
+    @Autowired
+    private JdbcAccountReader jdbcAccountReader;
+
+    @Autowired
+    private JdbcCustomerReader jdbcCustomerReader;
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    public void jdbcReadsSameAccountsAsR2dbc() {
+        assertEquals(template.selectOne(Query.query(where("id").is(1)), Account.class).block(),
+                jdbcAccountReader.findById(1).block());
+        assertEquals(template.select(Account.class).all().collectList().block(),
+                jdbcAccountReader.findAll().collectList().block());
+    }
+
+    @Test
+    public void jdbcReadsSameCustomersAsR2dbc() {
+        assertEquals(customerRepository.findById(1).block(), jdbcCustomerReader.findById(1).block());
+        assertEquals(customerRepository.findAllById(Arrays.asList(1, 2)).collectList().block(),
+                jdbcCustomerReader.findAllById(Arrays.asList(1, 2)).collectList().block());
+    }
+
+    /**
+     * Prints throughput and latency percentiles of single-account reads by id for both persistence paths.
+     */
+    @Test
+    @Tag("benchmark")
+    public void singleReadBenchmark() {
+        IntFunction<Mono<Account>> r2dbc = id -> template.selectOne(Query.query(where("id").is(id)), Account.class);
+        IntFunction<Mono<Account>> jdbc = jdbcAccountReader::findById;
+
+        measure("r2dbc", r2dbc, REQUESTS / 5);
+        measure("jdbc", jdbc, REQUESTS / 5);
+        measure("r2dbc", r2dbc, REQUESTS);
+        measure("jdbc", jdbc, REQUESTS);
+    }
+
+    private void measure(String name, IntFunction<Mono<Account>> read, int requests) {
+        long start = System.nanoTime();
+        List<Long> latencies = Flux.range(0, requests)
+                .flatMap(i -> Mono.defer(() -> {
+                    long requestStart = System.nanoTime();
+                    return read.apply(i % 2 + 1).map(account -> System.nanoTime() - requestStart);
+                }), CONCURRENCY)
+                .collectSortedList()
+                .block();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s: %d reads, %.0f reads/s, p50 %.3f ms, p99 %.3f ms%n", name, requests,
+                requests / (elapsed / 1e9), latencies.get(latencies.size() / 2) / 1e6,
+                latencies.get(latencies.size() * 99 / 100) / 1e6);
+    }
+}
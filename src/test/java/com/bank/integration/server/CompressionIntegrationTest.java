@@ -0,0 +1,80 @@
+package com.bank.integration.server;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import reactor.netty.http.client.HttpClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.compression.enabled=true",
+        "server.compression.min-response-size=1"})
+public class CompressionIntegrationTest {
+
+    private static final int REQUESTS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void compressesResponseWhenClientAcceptsGzip() {
+        assertEquals("gzip", get("/v1/accounts", true).contentEncoding);
+    }
+
+    @Test
+    public void sendsPlainResponseToClientWithoutGzip() {
+        assertNull(get("/v1/accounts", false).contentEncoding);
+    }
+
+    /**
+     * Prints bytes on the wire, average latency and throughput of sequential requests with and without gzip.
+     */
+    @Test
+    @Tag("benchmark")
+    public void compressionBenchmark() {
+        for (String uri : new String[]{"/v1/accounts", "/v1/accounts/1", "/v1/customers?expand=accounts"}) {
+            for (boolean gzip : new boolean[]{false, true}) {
+                for (int i = 0; i < REQUESTS / 4; i++) {
+                    get(uri, gzip);
+                }
+                long bytes = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < REQUESTS; i++) {
+                    bytes = get(uri, gzip).bytes;
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%s gzip=%s: %d bytes, %.3f ms/request, %.0f requests/s%n", uri, gzip, bytes,
+                        elapsed / 1e6 / REQUESTS, REQUESTS / (elapsed / 1e9));
+            }
+        }
+    }
+
+    private Response get(String uri, boolean gzip) {
+        return HttpClient.create()
+                .baseUrl("http://localhost:" + port)
+                .headers(headers -> {
+                    if (gzip) {
+                        headers.set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+                    }
+                })
+                .get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.asByteArray()
+                        .map(bytes -> new Response(response.responseHeaders().get(HttpHeaderNames.CONTENT_ENCODING), bytes.length)))
+                .block();
+    }
+
+    private static final class Response {
+        private final String contentEncoding;
+        private final long bytes;
+
+        private Response(String contentEncoding, long bytes) {
+            this.contentEncoding = contentEncoding;
+            this.bytes = bytes;
+        }
+    }
+}
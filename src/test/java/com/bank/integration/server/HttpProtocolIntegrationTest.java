@@ -0,0 +1,92 @@
+package com.bank.integration.server;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "bank.server.h2c.enabled=true")
+public class HttpProtocolIntegrationTest {
+
+    private static final int REQUESTS = 2_000;
+    private static final int CONCURRENCY = 64;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void servesTheSameResponseOverHttp2AndHttp11() {
+        Response http11 = get(client(HttpProtocol.HTTP11), "/v1/accounts/1").block();
+        Response h2c = get(client(HttpProtocol.H2C), "/v1/accounts/1").block();
+
+        assertEquals(200, http11.status);
+        assertEquals(200, h2c.status);
+        assertArrayEquals(http11.body, h2c.body);
+    }
+
+    /**
+     * Prints latency percentiles and throughput of concurrent requests over HTTP/1.1, where every in-flight
+     * request needs its own connection, and over cleartext HTTP/2, where they share multiplexed connections.
+     */
+    @Test
+    @Tag("benchmark")
+    public void protocolBenchmark() {
+        for (String uri : new String[]{"/v1/accounts/1", "/v1/accounts", "/v1/customers?expand=accounts"}) {
+            for (HttpProtocol protocol : new HttpProtocol[]{HttpProtocol.HTTP11, HttpProtocol.H2C}) {
+                HttpClient client = client(protocol);
+                run(client, uri, REQUESTS / 4);
+                long start = System.nanoTime();
+                List<Long> latencies = run(client, uri, REQUESTS);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%s %s: p50 %.3f ms, p99 %.3f ms, %.0f requests/s%n", uri, protocol,
+                        percentile(latencies, 0.5) / 1e6, percentile(latencies, 0.99) / 1e6, REQUESTS / (elapsed / 1e9));
+            }
+        }
+    }
+
+    private List<Long> run(HttpClient client, String uri, int requests) {
+        return Flux.range(0, requests)
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return get(client, uri).map(response -> System.nanoTime() - start);
+                }, CONCURRENCY)
+                .collectSortedList()
+                .block();
+    }
+
+    private HttpClient client(HttpProtocol protocol) {
+        return HttpClient.create()
+                .protocol(protocol)
+                .baseUrl("http://localhost:" + port);
+    }
+
+    private static Mono<Response> get(HttpClient client, String uri) {
+        return client.get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.asByteArray()
+                        .map(bytes -> new Response(response.status().code(), bytes)));
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * percentile) - 1));
+    }
+
+    private static final class Response {
+        private final int status;
+        private final byte[] body;
+
+        private Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
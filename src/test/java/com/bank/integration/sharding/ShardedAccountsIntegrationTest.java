@@ -0,0 +1,106 @@
+package com.bank.integration.sharding;
+
+import com.bank.exception.CrossShardWriteException;
+import com.bank.exception.CustomerHasAssociatedAccountsException;
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.service.AccountService;
+import com.bank.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SpringBootTest(properties = {
+        "bank.sharding.enabled=true",
+        "bank.sharding.page-size=1",
+        "bank.sharding.urls[0]=r2dbc:h2:mem:///shard0?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.sharding.urls[1]=r2dbc:h2:mem:///shard1?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "bank.sharding.urls[2]=r2dbc:h2:mem:///shard2?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShardedAccountsIntegrationTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ShardedAccountRepository shards;
+
+    @Test
+    public void storesAccountsOnTheShardOfTheirCustomer() {
+        AccountDto first = create(1, "GB29NWBK60161331926819");
+        AccountDto second = create(2, "GB94BARC10201530093459");
+
+        assertEquals(shards.shardOfCustomer(1), (first.getId() - 1) % shards.getShardCount());
+        assertEquals(shards.shardOfCustomer(2), (second.getId() - 1) % shards.getShardCount());
+        assertNotEquals(shards.shardOfCustomer(1), shards.shardOfCustomer(2));
+        assertEquals(first, accountService.getById(first.getId()).block());
+        assertEquals("GB94BARC10201530093459", accountService.getByIban("GB94 BARC 1020 1530 0934 59").block().getIban());
+    }
+
+    @Test
+    public void mergesAllShardsInIdOrder() {
+        create(1, "GB29NWBK60161331926819");
+        create(2, "GB94BARC10201530093459");
+        create(1, "GB82WEST12345698765432");
+        create(2, "GB03BARC20038041157768");
+
+        List<Integer> ids = accountService.getAllAccounts().map(AccountDto::getId).collectList().block();
+
+        assertEquals(4, ids.size());
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    public void readsCustomerWithAccountsFromItsShard() {
+        AccountDto account = create(1, "GB29NWBK60161331926819");
+
+        CustomerDto customer = customerService.getCustomerWithAccounts(1).block();
+
+        assertEquals(1, customer.getAccounts().size());
+        assertEquals(account.getId(), customer.getAccounts().get(0).getId());
+        StepVerifier.create(accountService.getAccountsForCustomer(2)).verifyComplete();
+    }
+
+    @Test
+    public void rejectsMovingAnAccountToAnotherShard() {
+        AccountDto account = create(1, "GB29NWBK60161331926819");
+        account.setCustomerId(2);
+
+        StepVerifier.create(accountService.updateAccount(account))
+                .expectError(CrossShardWriteException.class)
+                .verify();
+    }
+
+    @Test
+    public void keepsCustomersWithShardedAccounts() {
+        create(2, "GB94BARC10201530093459");
+
+        StepVerifier.create(customerService.deleteUserById(2))
+                .expectError(CustomerHasAssociatedAccountsException.class)
+                .verify();
+    }
+
+    private AccountDto create(int customerId, String iban) {
+        return accountService.createAccount(AccountDto.builder()
+                .customerId(customerId)
+                .iban(iban)
+                .currency("EUR")
+                .amount(new BigDecimal("10.0000"))
+                .issuedAt(LocalDate.of(2024, 1, 1))
+                .build()).block();
+    }
+}
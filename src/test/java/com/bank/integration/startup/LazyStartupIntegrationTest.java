@@ -0,0 +1,39 @@
+package com.bank.integration.startup;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.service.AccountService;
+import com.bank.startup.StartupTimeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest(properties = {
+        "spring.main.lazy-initialization=true",
+        "bank.database.initialize-on-first-use=true",
+        "bank.startup.report=true"})
+public class LazyStartupIntegrationTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+    @Test
+    public void migratesAndSeedsDatabaseOnFirstUse() {
+        AccountDto account = accountService.getById(1).block();
+
+        assertEquals("GB82WEST12345698765432", account.getIban());
+        assertEquals(new BigDecimal("20.0000"), account.getAmount());
+    }
+
+    @Test
+    public void reportsBeanCreationTimes() {
+        assertFalse(startupTimeline.report().isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.integration.startup;
+
+import com.bank.config.SchemaMigrationPopulator;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulatorUtils;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SchemaMigrationIntegrationTest {
+
+    private final ConnectionFactory connectionFactory =
+            ConnectionFactories.get("r2dbc:h2:mem:///migrations?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+
+    private final DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+
+    @Test
+    public void rejectsMigrationsPendingBelowTheAppliedVersion() {
+        migrate(new SchemaMigrationPopulator("H2", true)).verifyComplete();
+        migrate(new SchemaMigrationPopulator("H2", false)).verifyComplete();
+
+        databaseClient.execute("delete from schema_version where version = 10").fetch().rowsUpdated().block();
+
+        migrate(new SchemaMigrationPopulator("H2", false))
+                .verifyErrorSatisfies(e -> assertEquals("Migration V10__accounts_issued_at_index.sql is pending"
+                        + " but version 12 is already applied", NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+    }
+
+    @Test
+    public void keepsFolderMigrationsInTheirOwnHistory() {
+        migrate(new SchemaMigrationPopulator("H2", true)).verifyComplete();
+        long shared = count("select count(*) from schema_version");
+
+        migrate(SchemaMigrationPopulator.forFolder("H2", "shard")).verifyComplete();
+        migrate(SchemaMigrationPopulator.forFolder("H2", "shard")).verifyComplete();
+
+        assertEquals(shared, count("select count(*) from schema_version"));
+        assertEquals(1, count("select count(*) from schema_version_shard"));
+        migrate(new SchemaMigrationPopulator("H2", false)).verifyComplete();
+    }
+
+    private StepVerifier.FirstStep<Void> migrate(SchemaMigrationPopulator populator) {
+        return StepVerifier.create(DatabasePopulatorUtils.execute(populator, connectionFactory));
+    }
+
+    private long count(String sql) {
+        return databaseClient.execute(sql)
+                .map((row, metadata) -> ((Number) row.get(0)).longValue())
+                .one()
+                .block();
+    }
+}
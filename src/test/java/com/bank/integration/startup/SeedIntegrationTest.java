@@ -0,0 +1,41 @@
+package com.bank.integration.startup;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.init.DatabasePopulatorUtils;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class SeedIntegrationTest {
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    public void seedingTwiceKeepsTheSeededRows() {
+        long customers = count("select count(*) from customer");
+        long accounts = count("select count(*) from accounts");
+
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("db/seed.sql")), connectionFactory)
+                .block();
+
+        assertEquals(customers, count("select count(*) from customer"));
+        assertEquals(accounts, count("select count(*) from accounts"));
+    }
+
+    private long count(String sql) {
+        return databaseClient.execute(sql)
+                .map((row, metadata) -> ((Number) row.get(0)).longValue())
+                .one()
+                .block();
+    }
+}
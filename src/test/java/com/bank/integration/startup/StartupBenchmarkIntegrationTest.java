@@ -0,0 +1,27 @@
+package com.bank.integration.startup;
+
+import com.bank.startup.StartupBenchmark;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "bank.startup.benchmark=true",
+        "bank.startup.exit-after-benchmark=false"})
+public class StartupBenchmarkIntegrationTest {
+
+    @Autowired
+    private StartupBenchmark startupBenchmark;
+
+    @Test
+    public void measuresStartupAndFirstRequestOnceReady() {
+        assertTrue(startupBenchmark.getReadyMillis() > 0);
+        assertTrue(startupBenchmark.getFirstRequestMillis() >= 0);
+        System.out.printf("ready after %d ms, first request %d ms%n",
+                startupBenchmark.getReadyMillis(), startupBenchmark.getFirstRequestMillis());
+    }
+}
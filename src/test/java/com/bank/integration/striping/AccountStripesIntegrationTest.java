@@ -0,0 +1,221 @@
+package com.bank.integration.striping;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CreditDto;
+import com.bank.model.dto.CustomerDto;
+import com.bank.service.AccountService;
+import com.bank.service.CustomerService;
+import com.bank.striping.AccountStripes;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = {
+        "bank.striping.enabled=true",
+        "bank.striping.stripes=4",
+        "bank.striping.hot-accounts=1",
+        "bank.striping.rebalance-interval-ms=3600000"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class AccountStripesIntegrationTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private AccountStripes stripes;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    public void hotAccountsAreStripedOnStartup() {
+        assertEquals(4L, count("select count(*) from account_stripe where account_id = 1"));
+        assertEquals(4L, count("select stripes from accounts where id = 1"));
+        assertEquals(0L, count("select count(*) from account_stripe where account_id = 2"));
+    }
+
+    @Test
+    public void creditsGoToStripesAndReadsAddThemUp() {
+        AccountDto credited = credit(1, "5");
+        credit(1, "2.5");
+
+        assertEquals(0, new BigDecimal("25").compareTo(credited.getAmount()));
+        assertEquals(0, new BigDecimal("27.5").compareTo(get(1).getAmount()));
+        assertEquals(0, new BigDecimal("20").compareTo(storedAmount(1)));
+
+        StepVerifier.create(stripes.rebalance()).expectNext(1L).verifyComplete();
+
+        assertEquals(0, new BigDecimal("27.5").compareTo(storedAmount(1)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(collected(1)));
+        assertEquals(0, new BigDecimal("27.5").compareTo(get(1).getAmount()));
+    }
+
+    @Test
+    public void customersWithAccountsAddUpTheStripes() {
+        String before = customerService.getCustomerWithAccountsVersion(1).block();
+        String allBefore = customerService.getAllCustomersWithAccountsVersion().block();
+        credit(1, "5");
+
+        CustomerDto customer = customerService.getCustomerWithAccounts(1).block();
+        assertEquals(0, new BigDecimal("25").compareTo(customer.getAccounts().get(0).getAmount()));
+        assertEquals(0, new BigDecimal("10").compareTo(customer.getAccounts().get(1).getAmount()));
+        assertNotEquals(before, customerService.getCustomerWithAccountsVersion(1).block());
+        assertNotEquals(allBefore, customerService.getAllCustomersWithAccountsVersion().block());
+    }
+
+    @Test
+    public void plainAccountsAreCreditedOnTheirRow() {
+        AccountDto credited = credit(2, "1.25");
+
+        assertEquals(0, new BigDecimal("11.25").compareTo(credited.getAmount()));
+        assertEquals(0, new BigDecimal("11.25").compareTo(storedAmount(2)));
+    }
+
+    @Test
+    public void creditsChangeTheVersion() {
+        String before = accountService.getVersion(1).block();
+        credit(1, "1");
+
+        assertNotEquals(before, accountService.getVersion(1).block());
+    }
+
+    @Test
+    public void putReplacesTheWholeBalance() {
+        credit(1, "5");
+
+        client.put()
+                .uri("/v1/accounts")
+                .bodyValue(AccountDto.builder()
+                        .id(1)
+                        .customerId(1)
+                        .iban("GB82WEST12345698765432")
+                        .currency("EUR")
+                        .amount(new BigDecimal("30"))
+                        .issuedAt(LocalDate.of(2022, 5, 7))
+                        .build())
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        assertEquals(0, new BigDecimal("30").compareTo(get(1).getAmount()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(collected(1)));
+    }
+
+    @Test
+    public void unstripingKeepsTheBalance() {
+        credit(1, "5");
+
+        stripes.stripe(1, 0).block();
+
+        assertEquals(0L, count("select count(*) from account_stripe where account_id = 1"));
+        assertEquals(0, new BigDecimal("25").compareTo(storedAmount(1)));
+        assertEquals(0, new BigDecimal("25").compareTo(get(1).getAmount()));
+    }
+
+    @Test
+    public void rejectsNonPositiveCredits() {
+        client.post()
+                .uri("/v1/accounts/{id}/_credit", 1)
+                .bodyValue(CreditDto.builder().amount(new BigDecimal("-1")).build())
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    public void stripedAccountsAnswerNotModified() {
+        credit(1, "1");
+        String etag = etag(1);
+
+        client.get()
+                .uri("/v1/accounts/{id}", 1)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        credit(1, "1");
+
+        client.get()
+                .uri("/v1/accounts/{id}", 1)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    private AccountDto credit(int id, String amount) {
+        return client.post()
+                .uri("/v1/accounts/{id}/_credit", id)
+                .bodyValue(CreditDto.builder().amount(new BigDecimal(amount)).build())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(AccountDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private String etag(int id) {
+        return client.get()
+                .uri("/v1/accounts/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(AccountDto.class)
+                .getResponseHeaders()
+                .getETag();
+    }
+
+    private AccountDto get(int id) {
+        return client.get()
+                .uri("/v1/accounts/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(AccountDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private BigDecimal storedAmount(int id) {
+        return databaseClient.execute("select amount from accounts where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> row.get("amount", BigDecimal.class))
+                .one()
+                .block();
+    }
+
+    private BigDecimal collected(int id) {
+        return databaseClient.execute("select coalesce(sum(amount), 0) as collected from account_stripe where account_id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> row.get("collected", BigDecimal.class))
+                .one()
+                .block();
+    }
+
+    private long count(String sql) {
+        return databaseClient.execute(sql)
+                .map((row, metadata) -> ((Number) row.get(0)).longValue())
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,99 @@
+package com.bank.integration.striping;
+
+import com.bank.service.AccountService;
+import com.bank.striping.AccountStripes;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.test.annotation.DirtiesContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that no concurrent credit into one plain and one striped account is lost, and prints their throughput and
+ * latency percentiles with {@code ./gradlew benchmark}. The in-memory H2 database holds a row lock only for microseconds, so
+ * the gap is far wider on PostgreSQL, e.g. with {@code -Dspring.r2dbc.url=r2dbc:postgresql://...} pointing at a
+ * scratch database, since the test profile cleans it on startup.
+ */
+@SpringBootTest(properties = {
+        "bank.striping.enabled=true",
+        "bank.striping.stripes=16",
+        "bank.striping.hot-accounts=1",
+        "bank.striping.rebalance-interval-ms=3600000",
+        "bank.db-concurrency.enabled=false"})
+@DirtiesContext
+public class HotAccountContentionBenchmarkTest {
+
+    private static final int CREDITS = 5_000;
+    private static final int CONCURRENCY = 64;
+    private static final BigDecimal CREDIT = new BigDecimal("0.01");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountStripes stripes;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    public void concurrentCreditsAreNeverLost() {
+        stripes.rebalance().block();
+        BigDecimal striped = storedAmount(1);
+        BigDecimal plain = storedAmount(2);
+
+        Flux.range(0, CREDITS / 10)
+                .flatMap(i -> Mono.when(accountService.credit(1, CREDIT), accountService.credit(2, CREDIT)), CONCURRENCY)
+                .blockLast();
+
+        BigDecimal credited = CREDIT.multiply(BigDecimal.valueOf(CREDITS / 10));
+        assertEquals(0, striped.add(credited).compareTo(accountService.getById(1).block().getAmount()));
+        stripes.rebalance().block();
+        assertEquals(0, striped.add(credited).compareTo(storedAmount(1)));
+        assertEquals(0, plain.add(credited).compareTo(storedAmount(2)));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void hotAccountCreditBenchmark() {
+        measure("plain account 2", 2, CREDITS / 5);
+        measure("striped account 1", 1, CREDITS / 5);
+        measure("plain account 2", 2, CREDITS);
+        measure("striped account 1", 1, CREDITS);
+
+        long rebalanceStart = System.nanoTime();
+        stripes.rebalance().block();
+        System.out.printf("rebalance: %.3f ms%n", (System.nanoTime() - rebalanceStart) / 1e6);
+    }
+
+    private void measure(String name, int id, int credits) {
+        long start = System.nanoTime();
+        List<Long> latencies = Flux.range(0, credits)
+                .flatMap(i -> Mono.defer(() -> {
+                    long creditStart = System.nanoTime();
+                    return accountService.credit(id, CREDIT).then(Mono.fromCallable(() -> System.nanoTime() - creditStart));
+                }), CONCURRENCY)
+                .collectSortedList()
+                .block();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s: %d credits, %.0f credits/s, p50 %.3f ms, p99 %.3f ms%n", name, credits,
+                credits / (elapsed / 1e9), latencies.get(latencies.size() / 2) / 1e6,
+                latencies.get(latencies.size() * 99 / 100) / 1e6);
+    }
+
+    private BigDecimal storedAmount(int id) {
+        return databaseClient.execute("select amount from accounts where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> row.get("amount", BigDecimal.class))
+                .one()
+                .block();
+    }
+}
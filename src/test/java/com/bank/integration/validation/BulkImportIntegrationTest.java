@@ -0,0 +1,86 @@
+package com.bank.integration.validation;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.BulkItemResultDto;
+import com.bank.model.dto.CustomerDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = "bank.bulk-validation.batch-size=2")
+@DirtiesContext
+public class BulkImportIntegrationTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Test
+    @DisplayName("Bulk import accounts")
+    public void importAccounts() {
+        List<AccountDto> accounts = Arrays.asList(
+                AccountDto.builder().customerId(1).currency("EUR").iban("GB29NWBK60161331926819").amount(new BigDecimal("5.0000")).issuedAt(LocalDate.of(2024, 3, 1)).build(),
+                AccountDto.builder().customerId(1).currency("DDD").iban("WHAAT").amount(new BigDecimal("-1")).build(),
+                AccountDto.builder().customerId(999).currency("RON").iban("GB94BARC10201530093459").amount(BigDecimal.ONE).build());
+
+        List<BulkItemResultDto<AccountDto>> results = client.post()
+                .uri("/v1/accounts/_bulk")
+                .bodyValue(accounts)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BulkItemResultDto<AccountDto>>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals(BulkItemResultDto.CREATED, results.get(0).getStatus());
+        assertNotNull(results.get(0).getItem().getId());
+        assertEquals(BulkItemResultDto.INVALID, results.get(1).getStatus());
+        assertEquals(Arrays.asList("Balance can not be negative", "Invalid currency", "Invalid iban"), results.get(1).getErrors());
+        assertEquals(BulkItemResultDto.FAILED, results.get(2).getStatus());
+        assertEquals(Collections.singletonList("Customer with id 999 was not found!"), results.get(2).getErrors());
+    }
+
+    @Test
+    @DisplayName("Bulk import customers")
+    public void importCustomers() {
+        List<CustomerDto> customers = Arrays.asList(
+                CustomerDto.builder().fullName("Jane Roe").address("Main Street 1").phoneNumber("+40 721 234 567").ssn("123-45-6789").build(),
+                CustomerDto.builder().fullName("Joe").address("Main Street 2").phoneNumber("12").build());
+
+        List<BulkItemResultDto<CustomerDto>> results = client.post()
+                .uri("/v1/customers/_bulk")
+                .bodyValue(customers)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<BulkItemResultDto<CustomerDto>>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(results);
+        assertEquals(BulkItemResultDto.CREATED, results.get(0).getStatus());
+        assertEquals("Jane Roe", results.get(0).getItem().getFullName());
+        assertEquals(Integer.valueOf(1), results.get(1).getIndex());
+        assertEquals(Arrays.asList("Full name must be in range (5, 20) characters", "Invalid phone number",
+                "Invalid ssn information", "Ssn can not be null"), results.get(1).getErrors());
+    }
+}
@@ -0,0 +1,187 @@
+package com.bank.integration.writebehind;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import com.bank.service.CustomerService;
+import com.bank.writebehind.BalanceJournal;
+import com.bank.writebehind.BalanceWriteBehind;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient
+@SpringBootTest(properties = {"bank.write-behind.enabled=true", "bank.write-behind.flush-interval-ms=3600000"})
+@DirtiesContext
+public class BalanceWriteBehindIntegrationTest {
+
+    private static final Path JOURNAL_DIRECTORY = createJournalDirectory();
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private BalanceWriteBehind writeBehind;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) {
+        registry.add("bank.write-behind.journal-directory", JOURNAL_DIRECTORY::toString);
+    }
+
+    @Test
+    public void balancePatchIsJournaledAndStoredOnFlush() throws IOException {
+        AccountDto patched = patch(account(1, "GB82WEST12345698765432", "EUR", "25.5000", "2022-05-07"));
+
+        assertEquals(0, new BigDecimal("25.5").compareTo(patched.getAmount()));
+        assertEquals(0, new BigDecimal("25.5").compareTo(get(1).getAmount()));
+        assertEquals(0, new BigDecimal("20").compareTo(storedAmount(1)));
+        Map<Integer, BalanceJournal.Record> journaled = BalanceJournal.unflushed(readJournal());
+        assertEquals(0, new BigDecimal("25.5").compareTo(journaled.get(1).getAmount()));
+
+        assertEquals(1, writeBehind.flush().block());
+
+        assertEquals(0, new BigDecimal("25.5").compareTo(storedAmount(1)));
+        assertEquals(0, writeBehind.size());
+        assertTrue(BalanceJournal.unflushed(readJournal()).isEmpty());
+    }
+
+    @Test
+    public void otherPatchesWriteThroughWithTheBufferedAmount() {
+        patch(account(2, "GB03BARC20038041157768", "RON", "11", "2022-05-22"));
+        assertEquals(1, writeBehind.size());
+
+        AccountDto patched = patch(account(2, "GB03BARC20038041157768", "DOLLAR", "12", "2022-05-22"));
+
+        assertEquals("DOLLAR", patched.getCurrency());
+        assertEquals(0, writeBehind.size());
+        assertEquals(0, new BigDecimal("12").compareTo(storedAmount(2)));
+    }
+
+    @Test
+    public void customersWithAccountsSeeBufferedAmounts() {
+        String before = customerService.getCustomerWithAccountsVersion(1).block();
+        String allBefore = customerService.getAllCustomersWithAccountsVersion().block();
+        patch(account(1, "GB82WEST12345698765432", "EUR", "30.25", "2022-05-07"));
+
+        CustomerDto customer = customerService.getCustomerWithAccounts(1).block();
+        assertEquals(0, new BigDecimal("30.25").compareTo(customer.getAccounts().get(0).getAmount()));
+        assertNotEquals(before, customerService.getCustomerWithAccountsVersion(1).block());
+        assertNotEquals(allBefore, customerService.getAllCustomersWithAccountsVersion().block());
+
+        writeBehind.flush().block();
+    }
+
+    @Test
+    public void bufferedAccountsAnswerNotModified() {
+        patch(account(1, "GB82WEST12345698765432", "EUR", "31.5", "2022-05-07"));
+        String etag = etag(1);
+
+        client.get()
+                .uri("/v1/accounts/{id}", 1)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        patch(account(1, "GB82WEST12345698765432", "EUR", "32.5", "2022-05-07"));
+
+        client.get()
+                .uri("/v1/accounts/{id}", 1)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        writeBehind.flush().block();
+    }
+
+    private AccountDto patch(AccountDto account) {
+        return client.patch()
+                .uri("/v1/accounts")
+                .bodyValue(account)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(AccountDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private String etag(int id) {
+        return client.get()
+                .uri("/v1/accounts/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(AccountDto.class)
+                .getResponseHeaders()
+                .getETag();
+    }
+
+    private AccountDto get(int id) {
+        return client.get()
+                .uri("/v1/accounts/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(AccountDto.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private BigDecimal storedAmount(int id) {
+        return databaseClient.execute("select amount from accounts where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> row.get("amount", BigDecimal.class))
+                .one()
+                .block();
+    }
+
+    private static List<BalanceJournal.Record> readJournal() throws IOException {
+        try (BalanceJournal journal = new BalanceJournal(JOURNAL_DIRECTORY)) {
+            return journal.read();
+        }
+    }
+
+    private static AccountDto account(int id, String iban, String currency, String amount, String issuedAt) {
+        return AccountDto.builder()
+                .id(id)
+                .customerId(1)
+                .iban(iban)
+                .currency(currency)
+                .amount(new BigDecimal(amount))
+                .issuedAt(LocalDate.parse(issuedAt))
+                .build();
+    }
+
+    private static Path createJournalDirectory() {
+        try {
+            return Files.createTempDirectory("balance-journal");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
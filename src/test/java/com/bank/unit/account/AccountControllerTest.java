@@ -198,6 +198,7 @@ public class AccountControllerTest {
     @DisplayName("Get all accounts")
     public void getAllAccountsTest_ShouldReturnAllAccounts() {
         when(accountService.getAllAccounts()).thenReturn(Flux.fromIterable(accounts));
+        when(accountService.getAllAccountsVersion()).thenReturn(Mono.just("3.0.3"));
 
         client
                 .get()
@@ -217,12 +218,15 @@ public class AccountControllerTest {
     @Test
     @DisplayName("Get account by id")
     public void getAccountById_shouldReturnAccountById() {
+        when(accountService.getVersion(3)).thenReturn(Mono.just("7-b2"));
         when(accountService.getById(3)).thenReturn(Mono.just(accounts.get(0)));
         client.get()
                 .uri("/v1/accounts/3")
                 .exchange()
                 .expectStatus()
                 .isOk()
+                .expectHeader()
+                .valueEquals("ETag", "W/\"7-b2\"")
                 .expectBody(AccountDto.class)
                 .isEqualTo(accounts.get(0));
     }
@@ -3,6 +3,8 @@ package com.bank.unit.account;
 import com.bank.model.domain.Account;
 import com.bank.model.domain.Customer;
 import com.bank.model.dto.AccountDto;
+import com.bank.model.types.Currency;
+import com.bank.resilience.DatabaseResilience;
 import com.bank.service.AccountService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.ReactiveInsertOperation;
@@ -22,9 +25,11 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -43,15 +48,19 @@ public class AccountServiceTest {
 
     private R2dbcEntityTemplate template = Mockito.mock(R2dbcEntityTemplate.class);
 
+    @Spy
+    private DatabaseResilience resilience = new DatabaseResilience(Duration.ofSeconds(1), Duration.ofSeconds(1), 0,
+            Duration.ofMillis(1), 5, Duration.ofSeconds(1), System::nanoTime);
+
     @BeforeEach
     public void init() {
         System.out.println("macar");
         MockitoAnnotations.initMocks(this);
     }
 
-    List<Account> accounts = Arrays.asList(Account.builder().id(1).customerId(1).currency("EUR").iban("GB82WEST12345698765432").amount(new BigDecimal("20.0")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build(), Account.builder().id(2).customerId(2).currency("DDD").iban("WHAAT").amount(new BigDecimal(100)).issuedAt(LocalDate.now()).build(), Account.builder().id(3).customerId(1).currency("EUR").iban("GB91BARC20031863198927").amount(new BigDecimal(300)).issuedAt(LocalDate.of(2023, 1, 2)).build());
+    List<Account> accounts = Arrays.asList(Account.builder().id(1).customerId(1).currency(Currency.EUR).iban("GB82WEST12345698765432").amount(new BigDecimal("20.0")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build(), Account.builder().id(2).customerId(2).currency(Currency.DOLLAR).iban("WHAAT").amount(new BigDecimal(100)).issuedAt(LocalDate.now()).build(), Account.builder().id(3).customerId(1).currency(Currency.EUR).iban("GB91BARC20031863198927").amount(new BigDecimal(300)).issuedAt(LocalDate.of(2023, 1, 2)).build());
 
-    List<AccountDto> accountsDtos = Arrays.asList(AccountDto.builder().id(1).customerId(1).currency("EUR").iban("GB82WEST12345698765432").amount(new BigDecimal("20.0")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build(), AccountDto.builder().id(2).customerId(2).currency("DDD").iban("WHAAT").amount(new BigDecimal(100)).issuedAt(LocalDate.now()).build(), AccountDto.builder().id(3).customerId(1).currency("EUR").iban("GB91BARC20031863198927").amount(new BigDecimal(300)).issuedAt(LocalDate.of(2023, 1, 2)).build());
+    List<AccountDto> accountsDtos = Arrays.asList(AccountDto.builder().id(1).customerId(1).currency("EUR").iban("GB82WEST12345698765432").amount(new BigDecimal("20.0")).issuedAt(LocalDate.of(2022, Month.MAY, 7)).build(), AccountDto.builder().id(2).customerId(2).currency("DOLLAR").iban("WHAAT").amount(new BigDecimal(100)).issuedAt(LocalDate.now()).build(), AccountDto.builder().id(3).customerId(1).currency("EUR").iban("GB91BARC20031863198927").amount(new BigDecimal(300)).issuedAt(LocalDate.of(2023, 1, 2)).build());
 
 
     @Test
@@ -128,6 +137,32 @@ public class AccountServiceTest {
         StepVerifier.create(responseAccount).verifyErrorMessage("Account with id 55 was not found!");
     }
 
+    @Test
+    public void getAccountsByIds() {
+        when(template.select(any(), eq(Account.class))).thenReturn(Flux.fromIterable(accounts.subList(0, 2)));
+        Flux<AccountDto> response = accountService.getByIds(Arrays.asList(1, 2));
+        StepVerifier.create(response).expectNext(accountsDtos.get(0), accountsDtos.get(1)).verifyComplete();
+    }
+
+    @Test
+    public void getAccountsByNoIds() {
+        StepVerifier.create(accountService.getByIds(Collections.emptyList())).verifyComplete();
+    }
+
+    @Test
+    public void getAccountByIban() {
+        when(template.selectOne(any(), eq(Account.class))).thenReturn(Mono.just(accounts.get(0)));
+        Mono<AccountDto> responseAccount = accountService.getByIban("gb82 west 1234 5698 7654 32");
+        StepVerifier.create(responseAccount).expectNext(accountsDtos.get(0)).verifyComplete();
+    }
+
+    @Test
+    public void getNonExistingAccountByIban() {
+        when(template.selectOne(any(), eq(Account.class))).thenReturn(Mono.empty());
+        Mono<AccountDto> responseAccount = accountService.getByIban("GB91BARC20031863198927");
+        StepVerifier.create(responseAccount).verifyErrorMessage("Account with iban GB91BARC20031863198927 was not found!");
+    }
+
     @Test
     public void deleteAccountById() {
 
@@ -242,4 +277,12 @@ public class AccountServiceTest {
                 StepVerifier.create(updated).expectNext(finalAccount).verifyComplete()
         );
     }
+
+    @Test
+    public void patchWithUnknownCurrencyIsRejected() {
+        when(template.selectOne(any(), eq(Account.class))).thenReturn(Mono.just(accounts.get(0)));
+
+        StepVerifier.create(accountService.updateAccountPatch(AccountDto.builder().id(1).currency("XYZ").build()))
+                .verifyErrorMessage("Unsupported currency XYZ");
+    }
 }
@@ -0,0 +1,37 @@
+package com.bank.unit.batch;
+
+import com.bank.batch.InterestProperties;
+import com.bank.model.types.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InterestPropertiesTest {
+
+    @Test
+    public void disabledJobNeedsNoRates() {
+        InterestProperties properties = new InterestProperties();
+
+        assertDoesNotThrow(properties::checkRates);
+    }
+
+    @Test
+    public void enabledJobWithoutRatesIsRejected() {
+        InterestProperties properties = new InterestProperties();
+        properties.setEnabled(true);
+
+        assertThrows(IllegalStateException.class, properties::checkRates);
+    }
+
+    @Test
+    public void enabledJobWithRatesIsAccepted() {
+        InterestProperties properties = new InterestProperties();
+        properties.setEnabled(true);
+        properties.getAnnualRates().put(Currency.EUR, new BigDecimal("0.01"));
+
+        assertDoesNotThrow(properties::checkRates);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.unit.cache;
+
+import com.bank.cache.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BloomFilterTest {
+
+    private static final int INSERTIONS = 100_000;
+
+    @Test
+    public void neverMissesAValueThatWasPut() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(iban(i));
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain(iban(i)), iban(i));
+        }
+    }
+
+    @Test
+    public void keepsFalsePositivesNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(iban(i));
+        }
+        int falsePositives = 0;
+        for (int i = INSERTIONS; i < 2 * INSERTIONS; i++) {
+            if (filter.mightContain(iban(i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / INSERTIONS;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+
+    @Test
+    public void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+
+        assertFalse(filter.mightContain(iban(1)));
+    }
+
+    @Test
+    public void overfilledFilterStillHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(iban(i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(iban(i)));
+        }
+    }
+
+    private static String iban(int i) {
+        return String.format("DE89%018d", i);
+    }
+}
@@ -0,0 +1,261 @@
+package com.bank.unit.codec;
+
+import com.bank.codec.PooledJackson2JsonEncoder;
+import com.bank.exception.ExceptionResponse;
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the pre-built serializers write exactly what bean introspection writes, field set, naming and
+ * null inclusion included. The benchmarks print bytes
+ * allocated per serialization with and without them, and per encoded response with the stock and the pooled JSON
+ * encoder.
+ * Allocation is read from the thread's allocation counter, which is what a JFR allocation profile samples too.
+ */
+public class DtoSerializationBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 100_000;
+    private static final int ACCOUNTS_PER_RESPONSE = 100;
+
+    private static volatile Object sink;
+
+    private final ObjectMapper prebuilt = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final ObjectMapper introspected = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .annotationIntrospector(new IgnoringDtoSerializers())
+            .build();
+
+    @Test
+    public void writesSameJsonAsBeanIntrospection() throws Exception {
+        assertSameOutput(prebuilt, introspected);
+        assertSameOutput(Jackson2ObjectMapperBuilder.json().build(),
+                Jackson2ObjectMapperBuilder.json().annotationIntrospector(new IgnoringDtoSerializers()).build());
+        assertSameOutput(Jackson2ObjectMapperBuilder.smile().build(),
+                Jackson2ObjectMapperBuilder.smile().annotationIntrospector(new IgnoringDtoSerializers()).build());
+    }
+
+    @Test
+    public void followsConfiguredInclusionAndNaming() throws Exception {
+        for (JsonInclude.Include inclusion : Arrays.asList(JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_ABSENT,
+                JsonInclude.Include.NON_EMPTY)) {
+            assertSameOutput(Jackson2ObjectMapperBuilder.json().serializationInclusion(inclusion).build(),
+                    Jackson2ObjectMapperBuilder.json().serializationInclusion(inclusion)
+                            .annotationIntrospector(new IgnoringDtoSerializers()).build());
+        }
+        assertSameOutput(Jackson2ObjectMapperBuilder.json().propertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE).build(),
+                Jackson2ObjectMapperBuilder.json().propertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE)
+                        .annotationIntrospector(new IgnoringDtoSerializers()).build());
+    }
+
+    @Test
+    public void rejectsInclusionItCanNotFollow() {
+        ObjectMapper nonDefault = Jackson2ObjectMapperBuilder.json().serializationInclusion(JsonInclude.Include.NON_DEFAULT).build();
+
+        assertThrows(JsonMappingException.class, () -> nonDefault.writeValueAsBytes(accounts(1).get(0)));
+    }
+
+    @Test
+    public void writesEveryPropertyBeanIntrospectionFinds() throws Exception {
+        ExceptionResponse error = ExceptionResponse.builder()
+                .errors(Collections.singletonList("Invalid iban"))
+                .dateTime(LocalDateTime.of(2024, 3, 1, 12, 0))
+                .build();
+
+        assertEquals(introspectedProperties(AccountDto.class), writtenProperties(accounts(1).get(0)));
+        assertEquals(introspectedProperties(CustomerDto.class), writtenProperties(customer(accounts(1))));
+        assertEquals(introspectedProperties(ExceptionResponse.class), writtenProperties(error));
+    }
+
+    @Test
+    public void pooledEncoderWritesSameBytes() {
+        DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        List<AccountDto> accounts = accounts(ACCOUNTS_PER_RESPONSE);
+        ResolvableType type = ResolvableType.forClassWithGenerics(List.class, AccountDto.class);
+
+        DataBuffer stock = new Jackson2JsonEncoder(prebuilt).encodeValue(accounts, bufferFactory, type, MediaType.APPLICATION_JSON, Collections.emptyMap());
+        DataBuffer pooled = new PooledJackson2JsonEncoder(prebuilt).encodeValue(accounts, bufferFactory, type, MediaType.APPLICATION_JSON, Collections.emptyMap());
+
+        assertEquals(stock.toString(StandardCharsets.UTF_8), pooled.toString(StandardCharsets.UTF_8));
+        DataBufferUtils.release(stock);
+        DataBufferUtils.release(pooled);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void serializationAllocationBenchmark() throws Exception {
+        AccountDto account = accounts(1).get(0);
+        CustomerDto customer = customer(accounts(3));
+        ExceptionResponse error = ExceptionResponse.builder()
+                .errors(Arrays.asList("Invalid iban", "Balance can not be negative"))
+                .dateTime(LocalDateTime.of(2024, 3, 1, 12, 0))
+                .build();
+
+        report("AccountDto", () -> introspected.writeValueAsBytes(account), () -> prebuilt.writeValueAsBytes(account));
+        report("CustomerDto with 3 accounts", () -> introspected.writeValueAsBytes(customer), () -> prebuilt.writeValueAsBytes(customer));
+        report("ExceptionResponse", () -> introspected.writeValueAsBytes(error), () -> prebuilt.writeValueAsBytes(error));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void encoderAllocationBenchmark() throws Exception {
+        DataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        List<AccountDto> accounts = accounts(ACCOUNTS_PER_RESPONSE);
+        ResolvableType type = ResolvableType.forClassWithGenerics(List.class, AccountDto.class);
+        Jackson2JsonEncoder stock = new Jackson2JsonEncoder(prebuilt);
+        Jackson2JsonEncoder pooled = new PooledJackson2JsonEncoder(prebuilt);
+
+        report(ACCOUNTS_PER_RESPONSE + " accounts, encoder",
+                () -> DataBufferUtils.release(stock.encodeValue(accounts, bufferFactory, type, MediaType.APPLICATION_JSON, Collections.emptyMap())),
+                () -> DataBufferUtils.release(pooled.encodeValue(accounts, bufferFactory, type, MediaType.APPLICATION_JSON, Collections.emptyMap())));
+    }
+
+    private Set<String> introspectedProperties(Class<?> type) {
+        Set<String> properties = new TreeSet<>();
+        for (BeanPropertyDefinition property : introspected.getSerializationConfig()
+                .introspect(introspected.constructType(type)).findProperties()) {
+            if (property.couldSerialize()) {
+                properties.add(property.getName());
+            }
+        }
+        return properties;
+    }
+
+    private Set<String> writtenProperties(Object value) throws Exception {
+        Set<String> properties = new TreeSet<>();
+        Iterator<String> names = prebuilt.readTree(prebuilt.writeValueAsBytes(value)).fieldNames();
+        names.forEachRemaining(properties::add);
+        return properties;
+    }
+
+    private void assertSameOutput(ObjectMapper expected, ObjectMapper actual) throws Exception {
+        CustomerDto withoutAccounts = customer(null);
+        withoutAccounts.setPhoneNumber(null);
+        withoutAccounts.setAddress("");
+        AccountDto sparse = AccountDto.builder().id(7).iban("").build();
+        List<Object> values = Arrays.asList(accounts(10), customer(accounts(3)), customer(Collections.emptyList()),
+                withoutAccounts, sparse,
+                ExceptionResponse.builder().errors(Arrays.asList("a", null)).dateTime(LocalDateTime.of(2024, 3, 1, 12, 0, 5)).build(),
+                ExceptionResponse.builder().errors(Collections.emptyList()).build(),
+                ExceptionResponse.builder().build());
+        for (Object value : values) {
+            assertArrayEquals(expected.writeValueAsBytes(value), actual.writeValueAsBytes(value),
+                    new String(expected.writeValueAsBytes(value), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void report(String name, Callable<Object> before, Callable<Object> after) throws Exception {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        long[] beforeBytes = measure(threads, before);
+        long[] afterBytes = measure(threads, after);
+        System.out.printf("%-28s before %6d B/op %7.0f ns/op, after %6d B/op %7.0f ns/op%n", name,
+                beforeBytes[0] / MEASURED_ROUNDS, (double) beforeBytes[1] / MEASURED_ROUNDS,
+                afterBytes[0] / MEASURED_ROUNDS, (double) afterBytes[1] / MEASURED_ROUNDS);
+    }
+
+    /**
+     * @return bytes allocated and nanoseconds spent over the measured rounds
+     */
+    private static long[] measure(com.sun.management.ThreadMXBean threads, Callable<Object> operation) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = operation.call();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink = operation.call();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new long[]{threads.getThreadAllocatedBytes(threadId) - allocatedBefore, elapsed};
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Thread allocation counters are not available on this JVM");
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    private static List<AccountDto> accounts(int count) {
+        List<AccountDto> accounts = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            accounts.add(AccountDto.builder()
+                    .id(i)
+                    .customerId(i % 50 + 1)
+                    .currency(i % 2 == 0 ? "EUR" : "RON")
+                    .iban(String.format("GB82WEST1234569876%04d", i % 10_000))
+                    .amount(new BigDecimal(i).movePointLeft(2))
+                    .issuedAt(LocalDate.of(2022, 1, 1).plusDays(i % 365))
+                    .rowVersion((long) i)
+                    .build());
+        }
+        return accounts;
+    }
+
+    private static CustomerDto customer(List<AccountDto> accounts) {
+        return CustomerDto.builder()
+                .id(1)
+                .fullName("Jane Roe")
+                .address("Main Street 1")
+                .phoneNumber("+40 721 234 567")
+                .ssn("123-45-6789")
+                .accounts(accounts)
+                .rowVersion(3L)
+                .build();
+    }
+
+    /**
+     * Leaves out the {@code @JsonSerialize} serializers of the DTOs, which brings back bean introspection.
+     */
+    private static final class IgnoringDtoSerializers extends JacksonAnnotationIntrospector {
+        @Override
+        public Object findSerializer(Annotated annotated) {
+            Class<?> type = annotated.getRawType();
+            if (type == AccountDto.class || type == CustomerDto.class || type == ExceptionResponse.class) {
+                return null;
+            }
+            return super.findSerializer(annotated);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.unit.codec;
+
+import com.bank.model.dto.AccountDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares bytes on the wire and encode cost of a large account list in JSON and Smile. The measurements only run
+ * with {@code ./gradlew benchmark}.
+ */
+public class SmileEncodingBenchmarkTest {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+
+    @Test
+    public void smileIsSmallerThanJson() throws JsonProcessingException {
+        List<AccountDto> accounts = accounts();
+
+        byte[] jsonBytes = json.writeValueAsBytes(accounts);
+        byte[] smileBytes = smile.writeValueAsBytes(accounts);
+
+        assertTrue(smileBytes.length < jsonBytes.length);
+    }
+
+    @Test
+    public void smileRoundTripsAccounts() throws Exception {
+        List<AccountDto> accounts = accounts().subList(0, 10);
+
+        AccountDto[] decoded = smile.readValue(smile.writeValueAsBytes(accounts), AccountDto[].class);
+
+        assertEquals(accounts.get(3), decoded[3]);
+        assertTrue(smile.getFactory() instanceof SmileFactory);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void encodeCost() throws JsonProcessingException {
+        List<AccountDto> accounts = accounts();
+        int jsonBytes = json.writeValueAsBytes(accounts).length;
+        int smileBytes = smile.writeValueAsBytes(accounts).length;
+        System.out.printf("%d accounts: json %d bytes, smile %d bytes (%.1f%%)%n", ACCOUNTS,
+                jsonBytes, smileBytes, 100.0 * smileBytes / jsonBytes);
+
+        long jsonNanos = measure(json, accounts);
+        long smileNanos = measure(smile, accounts);
+
+        System.out.printf("%d accounts: json %.2f ms/encode, smile %.2f ms/encode%n", ACCOUNTS,
+                jsonNanos / 1e6 / MEASURED_ROUNDS, smileNanos / 1e6 / MEASURED_ROUNDS);
+    }
+
+    private long measure(ObjectMapper mapper, List<AccountDto> accounts) throws JsonProcessingException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapper.writeValueAsBytes(accounts);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            mapper.writeValueAsBytes(accounts);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private List<AccountDto> accounts() {
+        List<AccountDto> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 1; i <= ACCOUNTS; i++) {
+            accounts.add(AccountDto.builder()
+                    .id(i)
+                    .customerId(i % 500 + 1)
+                    .currency(i % 2 == 0 ? "EUR" : "RON")
+                    .iban(String.format("GB82WEST1234569876%04d", i % 10_000))
+                    .amount(new BigDecimal(i).movePointLeft(2))
+                    .issuedAt(LocalDate.of(2022, 1, 1).plusDays(i % 365))
+                    .build());
+        }
+        return accounts;
+    }
+}
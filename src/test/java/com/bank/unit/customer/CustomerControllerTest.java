@@ -42,6 +42,7 @@ public class CustomerControllerTest {
     public void getAllClientsTest_ShouldReturnAllCustomers() {
 
         when(customerService.getAllCustomers()).thenReturn(Flux.fromIterable(customers));
+        when(customerService.getAllCustomersVersion()).thenReturn(Mono.just("3.0.3"));
 
         client
                 .get()
@@ -1,25 +1,37 @@
 package com.bank.unit.customer;
 
+import com.bank.exception.CustomerHasAssociatedAccountsException;
+import com.bank.model.domain.Account;
 import com.bank.model.domain.Customer;
 import com.bank.model.dto.CustomerDto;
 import com.bank.repository.CustomerRepository;
+import com.bank.repository.sharding.ShardedAccountRepository;
+import com.bank.resilience.DatabaseResilience;
 import com.bank.service.CustomerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -32,6 +44,10 @@ public class CustomerServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Spy
+    private DatabaseResilience resilience = new DatabaseResilience(Duration.ofSeconds(1), Duration.ofSeconds(1), 0,
+            Duration.ofMillis(1), 5, Duration.ofSeconds(1), System::nanoTime);
+
     List<Customer> customers = Arrays.asList(
             Customer.builder().id(1).fullName("Nae Bara").phoneNumber("123456677").ssn("123-45-6789").address("Oradea").build(),
             Customer.builder().id(1).fullName("Sergiu Dan").phoneNumber("4356546").ssn("jgkj-674-546").address("Cluj").build(),
@@ -88,6 +104,17 @@ public class CustomerServiceTest {
         assertEquals("Id must not be null!", ex.getMessage());
     }
 
+    @Test
+    public void searchCustomers() {
+        when(customerRepository.search("Nae\\_%", "%Nae\\_%", 0, 100)).thenReturn(Flux.just(customers.get(0)));
+
+        Flux<CustomerDto> response = customerService.searchCustomers("Nae_", 0, 500);
+
+        StepVerifier.create(response)
+                .expectNext(customersDto.get(0))
+                .verifyComplete();
+    }
+
     @Test
     public void updateCustomer() {
 
@@ -124,6 +151,26 @@ public class CustomerServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void deleteCustomerRestoresItWhenAShardedAccountAppeared() {
+        ShardedAccountRepository shards = mock(ShardedAccountRepository.class);
+        DatabaseClient databaseClient = mock(DatabaseClient.class, Answers.RETURNS_DEEP_STUBS);
+        ReflectionTestUtils.setField(customerService, "shards", shards);
+        ReflectionTestUtils.setField(customerService, "databaseClient", databaseClient);
+        AtomicInteger lookups = new AtomicInteger();
+        when(customerRepository.findById(2)).thenReturn(Mono.just(customers.get(1)));
+        when(customerRepository.deleteById(2)).thenReturn(Mono.empty());
+        when(shards.findByCustomerId(2)).thenReturn(Flux.defer(() -> lookups.getAndIncrement() == 0
+                ? Flux.<Account>empty()
+                : Flux.just(Account.builder().id(7).customerId(2).build())));
+        when(databaseClient.insert().into(Customer.class).using(customers.get(1)).then()).thenReturn(Mono.empty());
+
+        StepVerifier.create(customerService.deleteUserById(2))
+                .expectError(CustomerHasAssociatedAccountsException.class)
+                .verify();
+        verify(databaseClient.insert().into(Customer.class)).using(customers.get(1));
+    }
+
     @Test
     public void deleteCustomerIdIsNull() {
         when(customerRepository.findById((Integer) any())).thenThrow(new IllegalArgumentException("Id must not be null!"));
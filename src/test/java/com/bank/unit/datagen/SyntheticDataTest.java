@@ -0,0 +1,59 @@
+package com.bank.unit.datagen;
+
+import com.bank.datagen.SyntheticData;
+import com.bank.model.domain.Account;
+import com.bank.model.domain.Customer;
+import com.bank.validation.iban.IbanValidator;
+import com.bank.validation.phonenumber.PhoneNumberValidator;
+import com.bank.validation.ssn.SsnValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SyntheticDataTest {
+
+    private static final int ROWS = 100_000;
+
+    private final SyntheticData data = new SyntheticData(42, LocalDate.of(2024, 6, 1));
+
+    @Test
+    public void computesIbanCheckDigits() {
+        assertEquals("GB82WEST12345698765432", SyntheticData.iban("GB", "WEST12345698765432"));
+        assertEquals("DE89370400440532013000", SyntheticData.iban("DE", "370400440532013000"));
+    }
+
+    @Test
+    public void customersPassValidation() {
+        for (int id = 1; id <= ROWS; id++) {
+            Customer customer = data.customer(id);
+            assertTrue(SsnValidator.check(customer.getSsn()), customer.getSsn());
+            assertTrue(PhoneNumberValidator.check(customer.getPhoneNumber()), customer.getPhoneNumber());
+            assertTrue(customer.getFullName().length() >= 5 && customer.getFullName().length() <= 20, customer.getFullName());
+            assertTrue(customer.getAddress().length() >= 3 && customer.getAddress().length() <= 50, customer.getAddress());
+        }
+    }
+
+    @Test
+    public void accountsHaveValidUniqueIbans() {
+        Set<String> ibans = new HashSet<>();
+        for (int id = 1; id <= ROWS; id++) {
+            Account account = data.account(id, id);
+            assertTrue(IbanValidator.check(account.getIban()), account.getIban());
+            assertTrue(ibans.add(IbanValidator.normalize(account.getIban())), account.getIban());
+            assertTrue(account.getAmount().signum() >= 0);
+        }
+    }
+
+    @Test
+    public void sameSeedGeneratesSameRows() {
+        SyntheticData again = new SyntheticData(42, LocalDate.of(2024, 6, 1));
+
+        assertEquals(data.customer(7), again.customer(7));
+        assertEquals(data.account(7, 3), again.account(7, 3));
+    }
+}
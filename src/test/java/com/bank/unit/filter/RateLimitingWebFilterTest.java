@@ -0,0 +1,180 @@
+package com.bank.unit.filter;
+
+import com.bank.filter.ClientKeyResolver;
+import com.bank.filter.RateLimitingWebFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitingWebFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    @Test
+    public void rejectsClientThatExceededItsBucket() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 2, 10, 100, directClients(), meterRegistry);
+
+        assertNull(filterRequest(filter, "10.0.0.1").getResponse().getStatusCode());
+        assertNull(filterRequest(filter, "10.0.0.1").getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterRequest(filter, "10.0.0.1").getResponse().getStatusCode());
+        assertNull(filterRequest(filter, "10.0.0.2").getResponse().getStatusCode());
+
+        assertEquals(1.0, meterRegistry.get("bank.requests.rejected").tag("reason", "rate-limit").counter().count());
+    }
+
+    @Test
+    public void rejectsRequestsAboveConcurrencyLimit() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(100, 100, 1, 100, directClients(), meterRegistry);
+        MockServerWebExchange inFlight = exchange("10.0.0.1");
+        MockServerWebExchange rejected = exchange("10.0.0.2");
+
+        filter.filter(inFlight, exchange -> Mono.never()).subscribe();
+        StepVerifier.create(filter.filter(rejected, chain)).verifyComplete();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals(1.0, meterRegistry.get("bank.requests.rejected").tag("reason", "concurrency-limit").counter().count());
+    }
+
+    @Test
+    public void ignoresClientSuppliedIdentifiers() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 100, directClients(), meterRegistry);
+
+        assertNull(filterRequest(filter, MockServerHttpRequest.get("/v1/accounts")
+                .remoteAddress(address("10.0.0.1"))
+                .header("X-Client-Id", "first")
+                .build()).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterRequest(filter, MockServerHttpRequest.get("/v1/accounts")
+                .remoteAddress(address("10.0.0.1"))
+                .header("X-Client-Id", "second")
+                .build()).getResponse().getStatusCode());
+    }
+
+    @Test
+    public void keysAuthenticatedRequestsByPrincipal() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 100, directClients(), meterRegistry);
+
+        assertNull(filterAs(filter, "partner-a", "10.0.0.1").getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterAs(filter, "partner-a", "10.0.0.2").getResponse().getStatusCode());
+        assertNull(filterAs(filter, "partner-b", "10.0.0.1").getResponse().getStatusCode());
+    }
+
+    @Test
+    public void tracksABoundedNumberOfClients() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 3, directClients(), meterRegistry);
+
+        for (int i = 1; i <= 10; i++) {
+            filterRequest(filter, "10.0.0." + i);
+        }
+
+        assertTrue(filter.getTrackedClients() <= 3);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterRequest(filter, "10.0.0.10").getResponse().getStatusCode());
+    }
+
+    @Test
+    public void evictedClientsStartOverWithAFullBucket() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 1, directClients(), meterRegistry);
+
+        filterRequest(filter, "10.0.0.1");
+        filterRequest(filter, "10.0.0.2");
+
+        assertEquals(1, filter.getTrackedClients());
+        assertNull(filterRequest(filter, "10.0.0.1").getResponse().getStatusCode());
+    }
+
+    @Test
+    public void keysRequestsFromTrustedProxiesByForwardedAddress() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 100,
+                new ClientKeyResolver(new String[]{"10.1.0.1", "10.1.0.2"}, ""), meterRegistry);
+
+        assertNull(filterRequest(filter, forwarded("10.1.0.1", "203.0.113.7")).getResponse().getStatusCode());
+        assertNull(filterRequest(filter, forwarded("10.1.0.1", "203.0.113.8")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                filterRequest(filter, forwarded("10.1.0.2", "198.51.100.1, 203.0.113.7, 10.1.0.1")).getResponse().getStatusCode());
+    }
+
+    @Test
+    public void ignoresForwardedAddressesFromUntrustedClients() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 100,
+                new ClientKeyResolver(new String[]{"10.1.0.1"}, ""), meterRegistry);
+
+        assertNull(filterRequest(filter, forwarded("10.0.0.1", "203.0.113.7")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                filterRequest(filter, forwarded("10.0.0.1", "203.0.113.8")).getResponse().getStatusCode());
+    }
+
+    @Test
+    public void keysRequestsFromTrustedProxiesByPartnerKey() {
+        RateLimitingWebFilter filter = new RateLimitingWebFilter(0.001, 1, 10, 100,
+                new ClientKeyResolver(new String[]{"10.1.0.1"}, "X-Partner-Key"), meterRegistry);
+
+        assertNull(filterRequest(filter, partner("10.1.0.1", "partner-a")).getResponse().getStatusCode());
+        assertNull(filterRequest(filter, partner("10.1.0.1", "partner-b")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterRequest(filter, partner("10.1.0.1", "partner-a")).getResponse().getStatusCode());
+        assertNull(filterRequest(filter, partner("10.0.0.1", "partner-c")).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, filterRequest(filter, partner("10.0.0.1", "partner-d")).getResponse().getStatusCode());
+    }
+
+    private MockServerWebExchange filterRequest(RateLimitingWebFilter filter, String address) {
+        return filterRequest(filter, request(address));
+    }
+
+    private MockServerWebExchange filterRequest(RateLimitingWebFilter filter, MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        return exchange;
+    }
+
+    private MockServerWebExchange filterAs(RateLimitingWebFilter filter, String principal, String address) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request(address));
+        ServerWebExchange authenticated = exchange.mutate()
+                .principal(Mono.<Principal>just(() -> principal))
+                .build();
+        StepVerifier.create(filter.filter(authenticated, chain)).verifyComplete();
+        return exchange;
+    }
+
+    private MockServerWebExchange exchange(String address) {
+        return MockServerWebExchange.from(request(address));
+    }
+
+    private static ClientKeyResolver directClients() {
+        return new ClientKeyResolver(new String[0], "");
+    }
+
+    private static MockServerHttpRequest forwarded(String proxy, String forwardedFor) {
+        return MockServerHttpRequest.get("/v1/accounts")
+                .remoteAddress(address(proxy))
+                .header("X-Forwarded-For", forwardedFor)
+                .build();
+    }
+
+    private static MockServerHttpRequest partner(String address, String partner) {
+        return MockServerHttpRequest.get("/v1/accounts")
+                .remoteAddress(address(address))
+                .header("X-Partner-Key", partner)
+                .build();
+    }
+
+    private static MockServerHttpRequest request(String address) {
+        return MockServerHttpRequest.get("/v1/accounts").remoteAddress(address(address)).build();
+    }
+
+    private static InetSocketAddress address(String host) {
+        return new InetSocketAddress(host, 40000);
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.unit.fx;
+
+import com.bank.model.types.Currency;
+import com.bank.service.FxRateSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FxRateSnapshotTest {
+
+    private final FxRateSnapshot snapshot = new FxRateSnapshot(Currency.EUR, rates("1", "4.9750", "1.0850"), Instant.now());
+
+    @Test
+    public void convertsFromBaseCurrency() {
+        assertEquals(new BigDecimal("49.7500"), snapshot.convert(BigDecimal.TEN, Currency.EUR, Currency.RON));
+    }
+
+    @Test
+    public void convertsToBaseCurrency() {
+        assertEquals(new BigDecimal("2.0101"), snapshot.convert(BigDecimal.TEN, Currency.RON, Currency.EUR));
+    }
+
+    @Test
+    public void convertsThroughCrossRate() {
+        assertEquals(new BigDecimal("2.1809"), snapshot.convert(BigDecimal.TEN, Currency.RON, Currency.DOLLAR));
+    }
+
+    @Test
+    public void keepsAmountInSameCurrency() {
+        assertEquals(new BigDecimal("12.3400"), snapshot.convert(new BigDecimal("12.34"), Currency.RON, Currency.RON));
+    }
+
+    @Test
+    public void rejectsMissingRate() {
+        Map<Currency, BigDecimal> rates = rates("1", "4.9750", "1.0850");
+        rates.remove(Currency.DOLLAR);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new FxRateSnapshot(Currency.EUR, rates, Instant.now()));
+        assertEquals("Missing or invalid exchange rate for DOLLAR", exception.getMessage());
+    }
+
+    private Map<Currency, BigDecimal> rates(String eur, String ron, String dollar) {
+        Map<Currency, BigDecimal> rates = new EnumMap<>(Currency.class);
+        rates.put(Currency.EUR, new BigDecimal(eur));
+        rates.put(Currency.RON, new BigDecimal(ron));
+        rates.put(Currency.DOLLAR, new BigDecimal(dollar));
+        return rates;
+    }
+}
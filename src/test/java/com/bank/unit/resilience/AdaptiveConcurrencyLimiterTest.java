@@ -0,0 +1,118 @@
+package com.bank.unit.resilience;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void shrinksLimitWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 10);
+
+        runOperations(limiter, 20, 10, 5);
+        int healthyLimit = limiter.getLimit();
+        runOperations(limiter, 1, 10, 50);
+
+        assertTrue(limiter.getLimit() < healthyLimit);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void samplesRecordedExecutionTimeInsteadOfHoldingTime() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 10);
+
+        runOperations(limiter, 20, 10, 5);
+        int healthyLimit = limiter.getLimit();
+        for (int round = 0; round < 10; round++) {
+            AdaptiveConcurrencyLimiter.Permit[] permits = new AdaptiveConcurrencyLimiter.Permit[10];
+            for (int i = 0; i < permits.length; i++) {
+                permits[i] = limiter.acquire().block();
+                permits[i].recordExecution(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+            // a slow consumer keeps the connections for much longer than the database needed
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+            for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+                permit.release(true);
+            }
+        }
+
+        assertTrue(limiter.getLimit() >= healthyLimit);
+    }
+
+    @Test
+    public void growsLimitWhileLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 10);
+
+        runOperations(limiter, 10, 10, 5);
+
+        assertTrue(limiter.getLimit() > 10);
+    }
+
+    @Test
+    public void rejectsQueuedOperationAfterTimeout() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 10);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire().block();
+        }
+
+        StepVerifier.create(limiter.acquire())
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify(Duration.ofSeconds(1));
+        assertEquals(4, limiter.getInFlight());
+    }
+
+    @Test
+    public void handsPermitToQueuedOperationOnRelease() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 4, 4, 10, Duration.ofSeconds(5), clock::get);
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire().block();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire().block();
+        }
+
+        StepVerifier.create(limiter.acquire())
+                .then(() -> first.release(false))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(4, limiter.getInFlight());
+    }
+
+    @Test
+    public void rejectsImmediatelyWhenQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 4, 4, 0, Duration.ofSeconds(5), clock::get);
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire().block();
+        }
+
+        StepVerifier.create(limiter.acquire())
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify(Duration.ofMillis(100));
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int queueTimeoutMs) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 4, 200, 10, Duration.ofMillis(queueTimeoutMs), clock::get);
+    }
+
+    private void runOperations(AdaptiveConcurrencyLimiter limiter, int rounds, int concurrency, long latencyMs) {
+        for (int round = 0; round < rounds; round++) {
+            AdaptiveConcurrencyLimiter.Permit[] permits = new AdaptiveConcurrencyLimiter.Permit[concurrency];
+            for (int i = 0; i < concurrency; i++) {
+                permits[i] = limiter.acquire().block();
+            }
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+            for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+                permit.release(true);
+            }
+        }
+    }
+}
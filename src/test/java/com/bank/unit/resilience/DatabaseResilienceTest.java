@@ -0,0 +1,115 @@
+package com.bank.unit.resilience;
+
+import com.bank.exception.AccountNotFoundException;
+import com.bank.exception.DatabaseUnavailableException;
+import com.bank.resilience.DatabaseResilience;
+import io.r2dbc.spi.R2dbcTransientResourceException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DatabaseResilienceTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final DatabaseResilience resilience = new DatabaseResilience(Duration.ofMillis(100), Duration.ofMillis(100),
+            2, Duration.ofMillis(1), 3, Duration.ofSeconds(10), clock::get);
+
+    @Test
+    public void retriesTransientReadFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> read = Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new R2dbcTransientResourceException("connection reset"))
+                : Mono.just("account"));
+
+        StepVerifier.create(resilience.read(read)).expectNext("account").verifyComplete();
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void doesNotRetryStreamThatAlreadyEmitted() {
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<String> read = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.concat(Flux.just("first"), Flux.error(new R2dbcTransientResourceException("connection reset")));
+        });
+
+        StepVerifier.create(resilience.read(read))
+                .expectNext("first")
+                .expectError(R2dbcTransientResourceException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void doesNotRetryWrites() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> write = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new R2dbcTransientResourceException("connection reset"));
+        });
+
+        StepVerifier.create(resilience.write(write)).expectError(R2dbcTransientResourceException.class).verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void timesOutStalledOperation() {
+        StepVerifier.create(resilience.write(Mono.never()))
+                .expectErrorMessage("Database operation did not complete within 100ms")
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void opensCircuitAfterConsecutiveFailuresAndClosesAfterSuccessfulTrial() {
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(resilience.write(Mono.error(new R2dbcTransientResourceException("down"))))
+                    .expectError(R2dbcTransientResourceException.class)
+                    .verify();
+        }
+        assertEquals("OPEN", resilience.getCircuitState());
+
+        AtomicInteger attempts = new AtomicInteger();
+        StepVerifier.create(resilience.read(Mono.fromCallable(attempts::incrementAndGet)))
+                .expectError(DatabaseUnavailableException.class)
+                .verify();
+        assertEquals(0, attempts.get());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        StepVerifier.create(resilience.read(Mono.fromCallable(attempts::incrementAndGet)))
+                .expectNext(1)
+                .verifyComplete();
+        assertEquals("CLOSED", resilience.getCircuitState());
+    }
+
+    @Test
+    public void businessErrorsDoNotOpenCircuit() {
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(resilience.read(Mono.error(new AccountNotFoundException(i))))
+                    .expectError(AccountNotFoundException.class)
+                    .verify();
+        }
+
+        assertEquals("CLOSED", resilience.getCircuitState());
+    }
+
+    @Test
+    public void timeoutsCountAsFailures() {
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(resilience.write(Mono.never()))
+                    .expectError(QueryTimeoutException.class)
+                    .verify(Duration.ofSeconds(1));
+        }
+
+        assertEquals("OPEN", resilience.getCircuitState());
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.unit.resilience;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import com.bank.resilience.LimitedConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs load through a {@link LimitedConnectionFactory} whose database slows down once more than
+ * {@link #CAPACITY} connections are busy, like a database that runs out of cores, and checks that the limiter
+ * shrinks its limit and keeps the latency of the operations it admits well below that of the same load without
+ * a limiter. Compares wall-clock percentiles, so it only runs as a benchmark; {@code DatabaseConcurrencyLoadTest}
+ * does the same against H2.
+ */
+@Tag("benchmark")
+public class LimitedConnectionFactoryLatencyTest {
+
+    private static final int CLIENTS = 64;
+    private static final int CAPACITY = 8;
+    private static final long BASE_LATENCY_MS = 2;
+    private static final long LATENCY_PER_EXTRA_CONNECTION_MS = 4;
+
+    @Test
+    public void shrinksLimitAndKeepsLatencyDownWhenTheDatabaseSaturates() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 100, Duration.ofMillis(20), System::nanoTime);
+        LatencyInjectingConnectionFactory database = new LatencyInjectingConnectionFactory();
+        ConnectionFactory limited = new LimitedConnectionFactory(database, limiter);
+
+        run(limited, 2_000);
+        int healthyLimit = limiter.getLimit();
+
+        database.saturating = true;
+        run(limited, 500);
+        Load limitedLoad = run(limited, 1_000);
+        Load unlimitedLoad = run(database, 1_000);
+
+        assertTrue(limiter.getLimit() < healthyLimit / 2, "limit " + limiter.getLimit() + " healthy " + healthyLimit);
+        assertTrue(limitedLoad.p99Ms() * 2 < unlimitedLoad.p99Ms(),
+                "with the limiter: " + limitedLoad + ", without: " + unlimitedLoad);
+        assertTrue(limitedLoad.latenciesNanos.size() > 0);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, database.busy.get());
+    }
+
+    private Load run(ConnectionFactory connectionFactory, int operations) {
+        AtomicInteger rejected = new AtomicInteger();
+        List<Long> latencies = Flux.range(0, operations)
+                .flatMap(i -> {
+                    long start = System.nanoTime();
+                    return Mono.usingWhen(Mono.from(connectionFactory.create()), connection -> Mono.just(1), Connection::close)
+                            .map(done -> System.nanoTime() - start)
+                            .onErrorResume(ConcurrencyLimitExceededException.class, e -> {
+                                rejected.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, CLIENTS)
+                .collectSortedList()
+                .block();
+        return new Load(latencies, rejected.get());
+    }
+
+    private static final class Load {
+        private final List<Long> latenciesNanos;
+        private final int rejected;
+
+        private Load(List<Long> latenciesNanos, int rejected) {
+            this.latenciesNanos = latenciesNanos;
+            this.rejected = rejected;
+        }
+
+        private double p99Ms() {
+            if (latenciesNanos.isEmpty()) {
+                return 0;
+            }
+            int index = Math.min(latenciesNanos.size() - 1, (int) Math.ceil(latenciesNanos.size() * 0.99) - 1);
+            return latenciesNanos.get(index) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return latenciesNanos.size() + " done, " + rejected + " rejected, p99 " + p99Ms() + " ms";
+        }
+    }
+
+    /**
+     * Hands out connections after a delay that grows with the number of connections already busy once the
+     * database is saturating.
+     */
+    private static final class LatencyInjectingConnectionFactory implements ConnectionFactory {
+
+        private final AtomicInteger busy = new AtomicInteger();
+        private volatile boolean saturating;
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.defer(() -> {
+                int concurrent = busy.incrementAndGet();
+                long latencyMs = BASE_LATENCY_MS
+                        + (saturating ? LATENCY_PER_EXTRA_CONNECTION_MS * Math.max(0, concurrent - CAPACITY) : 0);
+                Connection connection = mock(Connection.class);
+                doReturn(Mono.fromRunnable(busy::decrementAndGet)).when(connection).close();
+                return Mono.delay(Duration.ofMillis(latencyMs)).thenReturn(connection);
+            });
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "latency-injecting";
+        }
+    }
+}
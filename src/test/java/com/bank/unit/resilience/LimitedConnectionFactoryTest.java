@@ -0,0 +1,82 @@
+package com.bank.unit.resilience;
+
+import com.bank.exception.ConcurrencyLimitExceededException;
+import com.bank.resilience.AdaptiveConcurrencyLimiter;
+import com.bank.resilience.LimitedConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LimitedConnectionFactoryTest {
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2, 2, 0, Duration.ofMillis(10), System::nanoTime);
+
+    private final ConnectionFactory database = mock(ConnectionFactory.class);
+
+    private final LimitedConnectionFactory limited = new LimitedConnectionFactory(database, limiter);
+
+    @Test
+    public void connectionsUnderAHeldPermitSkipTheLimiter() {
+        doReturn(Mono.fromCallable(LimitedConnectionFactoryTest::connection)).when(database).create();
+        Mono.from(limited.create()).block();
+        Mono.from(limited.create()).block();
+
+        StepVerifier.create(Mono.from(limited.create()))
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify();
+        StepVerifier.create(Mono.from(limited.create()).subscriberContext(LimitedConnectionFactory.underPermit()))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void closingTheConnectionReleasesThePermit() {
+        doReturn(Mono.fromCallable(LimitedConnectionFactoryTest::connection)).when(database).create();
+
+        Connection connection = Mono.from(limited.create()).block();
+        assertEquals(1, limiter.getInFlight());
+        Mono.from(connection.close()).block();
+
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void statementsStayWrappedWhileTheyAreBuilt() {
+        doReturn(Mono.fromCallable(LimitedConnectionFactoryTest::connection)).when(database).create();
+        Connection connection = Mono.from(limited.create()).block();
+
+        Statement statement = connection.createStatement("select 1");
+        Statement bound = statement.bind(0, 1);
+
+        assertSame(statement, bound);
+        assertSame(statement, bound.add());
+        StepVerifier.create(Flux.from(bound.execute())).verifyComplete();
+    }
+
+    private static Connection connection() {
+        Statement statement = mock(Statement.class);
+        when(statement.bind(anyInt(), any())).thenReturn(statement);
+        when(statement.add()).thenReturn(statement);
+        doReturn(Flux.empty()).when(statement).execute();
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement(anyString())).thenReturn(statement);
+        doReturn(Mono.empty()).when(connection).close();
+        return connection;
+    }
+}
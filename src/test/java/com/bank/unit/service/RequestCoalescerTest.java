@@ -0,0 +1,132 @@
+package com.bank.unit.service;
+
+import com.bank.service.RequestCoalescer;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestCoalescerTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void batchesLoadsWithinTheWindow() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(this::values, Duration.ofMillis(50), 100);
+
+        StepVerifier.create(Flux.merge(coalescer.load(1), coalescer.load(2), coalescer.load(3)).collectList())
+                .assertNext(values -> assertEquals(Arrays.asList("1", "2", "3"), sorted(values)))
+                .verifyComplete();
+
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList(1, 2, 3), sorted(batches.get(0)));
+    }
+
+    @Test
+    public void loadsAfterTheWindowGoInANewBatch() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(this::values, Duration.ofMillis(10), 100);
+
+        StepVerifier.create(coalescer.load(1)).expectNext("1").verifyComplete();
+        StepVerifier.create(coalescer.load(2)).expectNext("2").verifyComplete();
+
+        assertEquals(Arrays.asList(Collections.singletonList(1), Collections.singletonList(2)), batches);
+    }
+
+    @Test
+    public void duplicateKeysShareOneResult() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(this::values, Duration.ofMillis(50), 100);
+
+        StepVerifier.create(Flux.merge(coalescer.load(7), coalescer.load(7), coalescer.load(7)).collectList())
+                .assertNext(values -> assertEquals(Arrays.asList("7", "7", "7"), values))
+                .verifyComplete();
+
+        assertEquals(Collections.singletonList(Collections.singletonList(7)), batches);
+    }
+
+    @Test
+    public void missingKeyCompletesEmpty() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(
+                ids -> values(ids).filter(value -> !value.equals("2")), Duration.ofMillis(50), 100);
+
+        Mono<List<String>> found = coalescer.load(1).map(Collections::singletonList).defaultIfEmpty(Collections.emptyList());
+        Mono<List<String>> missing = coalescer.load(2).map(Collections::singletonList).defaultIfEmpty(Collections.emptyList());
+
+        StepVerifier.create(Mono.zip(found, missing))
+                .assertNext(results -> {
+                    assertEquals(Collections.singletonList("1"), results.getT1());
+                    assertTrue(results.getT2().isEmpty());
+                })
+                .verifyComplete();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void errorReachesEveryWaiter() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(
+                ids -> values(ids).concatWith(Flux.error(new IllegalStateException("batch failed"))),
+                Duration.ofMillis(50), 100);
+
+        Mono<String> first = coalescer.load(1).onErrorResume(e -> Mono.just(e.getMessage()));
+        Mono<String> duplicate = coalescer.load(1).onErrorResume(e -> Mono.just(e.getMessage()));
+        Mono<String> second = coalescer.load(2).onErrorResume(e -> Mono.just(e.getMessage()));
+
+        StepVerifier.create(Flux.merge(first, duplicate, second).collectList())
+                .assertNext(messages -> assertEquals(Arrays.asList("batch failed", "batch failed", "batch failed"), messages))
+                .verifyComplete();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void flushesWhenTheBatchIsFull() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(this::values, Duration.ofHours(1), 3);
+
+        StepVerifier.create(Flux.merge(coalescer.load(1), coalescer.load(2), coalescer.load(3)).collectList())
+                .assertNext(values -> assertEquals(3, values.size()))
+                .verifyComplete();
+
+        assertEquals(1, batches.size());
+        assertEquals(Arrays.asList(1, 2, 3), sorted(batches.get(0)));
+    }
+
+    @Test
+    public void startsANewBatchOnceTheBatchIsFull() {
+        RequestCoalescer<Integer, String> coalescer = coalescer(this::values, Duration.ofMillis(50), 2);
+
+        StepVerifier.create(Flux.merge(coalescer.load(1), coalescer.load(2), coalescer.load(3)).collectList())
+                .assertNext(values -> assertEquals(Arrays.asList("1", "2", "3"), sorted(values)))
+                .verifyComplete();
+
+        assertEquals(2, batches.size());
+        assertEquals(Arrays.asList(1, 2), sorted(batches.get(0)));
+        assertEquals(Collections.singletonList(3), batches.get(1));
+    }
+
+    private RequestCoalescer<Integer, String> coalescer(Function<List<Integer>, Flux<String>> loader,
+                                                        Duration window, int maxBatchSize) {
+        return new RequestCoalescer<>(ids -> {
+            batches.add(ids);
+            return loader.apply(ids);
+        }, Integer::valueOf, window, maxBatchSize);
+    }
+
+    private Flux<String> values(List<Integer> ids) {
+        return Flux.fromIterable(ids).map(String::valueOf);
+    }
+
+    private static <T extends Comparable<T>> List<T> sorted(List<T> values) {
+        List<T> copy = new ArrayList<>(values);
+        Collections.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,134 @@
+package com.bank.unit.validation;
+
+import com.bank.model.dto.AccountDto;
+import com.bank.model.dto.CustomerDto;
+import com.bank.validation.BulkValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that bulk validation agrees with Bean Validation and keeps input order. The benchmark prints its throughput
+ * for growing numbers of cores.
+ */
+public class BulkValidatorTest {
+
+    private static final int BENCHMARK_CUSTOMERS = 200_000;
+
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final List<BulkValidator> validators = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        validators.forEach(BulkValidator::shutdown);
+    }
+
+    @Test
+    public void agreesWithBeanValidationOnAccounts() {
+        BulkValidator validator = validator(2, 2);
+        List<AccountDto> accounts = Arrays.asList(
+                AccountDto.builder().iban("GB82 WEST 1234 5698 7654 32").currency("EUR").amount(BigDecimal.TEN).build(),
+                AccountDto.builder().iban("WHAAT").currency("DDD").amount(new BigDecimal("-0.01")).build(),
+                AccountDto.builder().amount(BigDecimal.ZERO).build(),
+                AccountDto.builder().iban("GB82WEST12345698765433").currency("RON").build());
+
+        List<List<String>> errors = validator.validateAccounts(accounts).collectList().block();
+
+        for (int i = 0; i < accounts.size(); i++) {
+            assertEquals(messages(beanValidator.validate(accounts.get(i))), errors.get(i), "account " + i);
+        }
+    }
+
+    @Test
+    public void agreesWithBeanValidationOnCustomers() {
+        BulkValidator validator = validator(2, 2);
+        List<CustomerDto> customers = Arrays.asList(
+                customer(0),
+                CustomerDto.builder().fullName("Joe").address("AB").phoneNumber("12").ssn("000-12-3456").build(),
+                CustomerDto.builder().build(),
+                CustomerDto.builder().fullName("A very very long full name").address("Main Street 1")
+                        .phoneNumber("(123) 456-7890").ssn("123-45-6789").build());
+
+        List<List<String>> errors = validator.validateCustomers(customers).collectList().block();
+
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(messages(beanValidator.validate(customers.get(i))), errors.get(i), "customer " + i);
+        }
+    }
+
+    @Test
+    public void keepsInputOrder() {
+        BulkValidator validator = validator(3, 4);
+        List<CustomerDto> customers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            customers.add(i % 7 == 0 ? CustomerDto.builder().fullName("Joe").build() : customer(i));
+        }
+
+        List<List<String>> errors = validator.validateCustomers(customers).collectList().block();
+
+        assertEquals(customers.size(), errors.size());
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(i % 7 == 0, !errors.get(i).isEmpty(), "customer " + i);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void throughputByCoreCount() {
+        List<CustomerDto> customers = new ArrayList<>();
+        for (int i = 0; i < BENCHMARK_CUSTOMERS; i++) {
+            customers.add(customer(i));
+        }
+        long start = System.nanoTime();
+        for (CustomerDto customer : customers.subList(0, BENCHMARK_CUSTOMERS / 10)) {
+            beanValidator.validate(customer);
+        }
+        long beanValidationNanos = System.nanoTime() - start;
+        System.out.printf("bean validation, 1 core: %.0f customers/s%n", BENCHMARK_CUSTOMERS / 10 / (beanValidationNanos / 1e9));
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+            BulkValidator validator = validator(256, parallelism);
+            validator.validateCustomers(customers).blockLast();
+            start = System.nanoTime();
+            validator.validateCustomers(customers).blockLast();
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("bulk validation, %d cores: %.0f customers/s%n", parallelism, BENCHMARK_CUSTOMERS / (elapsed / 1e9));
+        }
+    }
+
+    private BulkValidator validator(int batchSize, int parallelism) {
+        BulkValidator validator = new BulkValidator(batchSize, parallelism);
+        validators.add(validator);
+        return validator;
+    }
+
+    private static CustomerDto customer(int i) {
+        return CustomerDto.builder()
+                .fullName("Customer " + i)
+                .address("Street " + i)
+                .phoneNumber(String.format("+40 7%02d %03d %03d", i % 100, i % 1000, (i / 1000) % 1000))
+                .ssn(String.format("1%02d-45-%04d", i % 100, 1 + i % 9999))
+                .build();
+    }
+
+    private static List<String> messages(Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,135 @@
+package com.bank.unit.validation;
+
+import com.bank.validation.ValidationCache;
+import com.bank.validation.iban.IbanValidator;
+import com.bank.validation.phonenumber.PhoneNumberValidator;
+import com.bank.validation.ssn.SsnValidator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.validation.ConstraintValidator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the validation cache and compares validation cost with and without it on skewed input, where a few
+ * values make up most of the payloads.
+ */
+public class ValidationCacheBenchmarkTest {
+
+    private static final int DISTINCT_VALUES = 10_000;
+    private static final int VALIDATIONS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static volatile int sink;
+
+    @Test
+    public void cachesResultPerValidatorAndValue() {
+        ValidationCache cache = new ValidationCache(100);
+        IbanValidator ibanValidator = cached(new IbanValidator(), cache);
+        SsnValidator ssnValidator = cached(new SsnValidator(), cache);
+
+        assertTrue(ibanValidator.isValid("GB82WEST12345698765432", null));
+        assertTrue(ibanValidator.isValid("GB82WEST12345698765432", null));
+        assertFalse(ibanValidator.isValid("GB82WEST12345698765433", null));
+        assertTrue(ssnValidator.isValid("123-45-6789", null));
+        assertFalse(ssnValidator.isValid("GB82WEST12345698765432", null));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(0.2, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void staysWithinMaxSize() {
+        ValidationCache cache = new ValidationCache(160);
+        PhoneNumberValidator validator = cached(new PhoneNumberValidator(), cache);
+
+        for (int i = 0; i < 10_000; i++) {
+            validator.isValid("+40 " + (700_000_000 + i), null);
+        }
+
+        assertTrue(cache.size() <= 160);
+    }
+
+    @Test
+    public void servesSkewedInputMostlyFromCache() {
+        ValidationCache cache = new ValidationCache(DISTINCT_VALUES / 10);
+        IbanValidator validator = cached(new IbanValidator(), cache);
+        String[] ibans = ibans();
+        int[] input = skewedIndexes();
+
+        for (int i = 0; i < VALIDATIONS / 10; i++) {
+            validator.isValid(ibans[input[i]], null);
+        }
+
+        assertTrue(cache.getHitRatio() > 0.3, "hit ratio " + cache.getHitRatio());
+    }
+
+    /**
+     * Prints the cost of a validation with and without the cache, and checks that the cache makes it cheaper.
+     */
+    @Test
+    @Tag("benchmark")
+    public void skewedInputBenchmark() {
+        String[] ibans = ibans();
+        int[] input = skewedIndexes();
+        IbanValidator uncached = new IbanValidator();
+        ValidationCache cache = new ValidationCache(DISTINCT_VALUES / 10);
+        IbanValidator cachedValidator = cached(new IbanValidator(), cache);
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            measure(uncached, ibans, input);
+            measure(cachedValidator, ibans, input);
+        }
+        long uncachedNanos = measure(uncached, ibans, input);
+        long cachedNanos = measure(cachedValidator, ibans, input);
+
+        System.out.printf("%d iban validations over %d distinct values: uncached %.1f ns/op, cached %.1f ns/op, hit ratio %.3f%n",
+                VALIDATIONS, DISTINCT_VALUES, (double) uncachedNanos / VALIDATIONS, (double) cachedNanos / VALIDATIONS,
+                cache.getHitRatio());
+        assertTrue(cachedNanos < uncachedNanos);
+    }
+
+    private static String[] ibans() {
+        String[] ibans = new String[DISTINCT_VALUES];
+        for (int i = 0; i < DISTINCT_VALUES; i++) {
+            ibans[i] = String.format("GB82 WEST %014d", i);
+        }
+        return ibans;
+    }
+
+    private static <T extends ConstraintValidator<?, String>> T cached(T validator, ValidationCache cache) {
+        ReflectionTestUtils.setField(validator, "cache", cache);
+        return validator;
+    }
+
+    /**
+     * Most validations pick from the first few values, like feeds that resend the same accounts.
+     */
+    private static int[] skewedIndexes() {
+        Random random = new Random(42);
+        int[] indexes = new int[VALIDATIONS];
+        for (int i = 0; i < VALIDATIONS; i++) {
+            indexes[i] = (int) (DISTINCT_VALUES * Math.pow(random.nextDouble(), 4));
+        }
+        return indexes;
+    }
+
+    private static long measure(ConstraintValidator<?, String> validator, String[] values, int[] input) {
+        int valid = 0;
+        long start = System.nanoTime();
+        for (int index : input) {
+            if (validator.isValid(values[index], null)) {
+                valid++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = valid;
+        return elapsed;
+    }
+}
@@ -0,0 +1,125 @@
+package com.bank.unit.writebehind;
+
+import com.bank.writebehind.BalanceJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BalanceJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void readsBackAppendedRecords() throws IOException {
+        BalanceJournal journal = started();
+        journal.append(Arrays.asList(BalanceJournal.Record.amount(1, 7, new BigDecimal("12.3400")),
+                BalanceJournal.Record.amount(2, 8, new BigDecimal("-5")))).block();
+        journal.append(Collections.singletonList(BalanceJournal.Record.flushed(1, 7))).block();
+        journal.close();
+
+        List<BalanceJournal.Record> records = read();
+
+        assertEquals(3, records.size());
+        assertEquals(new BigDecimal("12.3400"), records.get(0).getAmount());
+        assertEquals(8, records.get(1).getAccountId());
+        assertEquals(2, records.get(1).getSequence());
+    }
+
+    @Test
+    public void ignoresTornRecordAtTheEnd() throws IOException {
+        BalanceJournal journal = started();
+        journal.append(Collections.singletonList(BalanceJournal.Record.amount(1, 7, BigDecimal.TEN))).block();
+        journal.close();
+        Path segment = segments().get(0);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<BalanceJournal.Record> records = read();
+
+        assertEquals(1, records.size());
+        assertEquals(BigDecimal.TEN, records.get(0).getAmount());
+    }
+
+    @Test
+    public void keepsLatestAmountsThatWereNotFlushed() {
+        Map<Integer, BalanceJournal.Record> unflushed = BalanceJournal.unflushed(Arrays.asList(
+                BalanceJournal.Record.amount(1, 7, new BigDecimal("1")),
+                BalanceJournal.Record.amount(3, 7, new BigDecimal("3")),
+                BalanceJournal.Record.amount(2, 7, new BigDecimal("2")),
+                BalanceJournal.Record.amount(4, 8, new BigDecimal("4")),
+                BalanceJournal.Record.flushed(4, 8),
+                BalanceJournal.Record.amount(5, 9, new BigDecimal("5")),
+                BalanceJournal.Record.flushed(3, 7)));
+
+        assertEquals(Collections.singleton(9), unflushed.keySet());
+        assertEquals(new BigDecimal("5"), unflushed.get(9).getAmount());
+        assertEquals(new BigDecimal("3"), BalanceJournal.unflushed(Arrays.asList(
+                BalanceJournal.Record.amount(3, 7, new BigDecimal("3")),
+                BalanceJournal.Record.flushed(2, 7))).get(7).getAmount());
+    }
+
+    @Test
+    public void dropsSegmentsOlderThanTheCurrentOne() throws IOException {
+        BalanceJournal journal = started();
+        journal.append(Collections.singletonList(BalanceJournal.Record.amount(1, 7, BigDecimal.ONE))).block();
+        journal.rotate().block();
+        journal.append(Collections.singletonList(BalanceJournal.Record.amount(2, 7, BigDecimal.TEN))).block();
+        assertEquals(2, segments().size());
+
+        journal.deleteOlderSegments().block();
+        journal.close();
+
+        assertEquals(1, segments().size());
+        List<BalanceJournal.Record> records = read();
+        assertEquals(1, records.size());
+        assertEquals(BigDecimal.TEN, records.get(0).getAmount());
+    }
+
+    @Test
+    public void startRemovesReplayedSegments() throws IOException {
+        BalanceJournal journal = started();
+        journal.append(Collections.singletonList(BalanceJournal.Record.amount(1, 7, BigDecimal.ONE))).block();
+        journal.close();
+
+        BalanceJournal restarted = new BalanceJournal(directory);
+        assertEquals(1, restarted.read().size());
+        restarted.start();
+        restarted.close();
+
+        assertTrue(read().isEmpty());
+        assertEquals(1, segments().size());
+    }
+
+    private List<BalanceJournal.Record> read() throws IOException {
+        try (BalanceJournal journal = new BalanceJournal(directory)) {
+            return journal.read();
+        }
+    }
+
+    private BalanceJournal started() throws IOException {
+        BalanceJournal journal = new BalanceJournal(directory);
+        journal.read();
+        journal.start();
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
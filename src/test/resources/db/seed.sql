@@ -0,0 +1,14 @@
+-- Only inserts rows that are missing, so seeding a database that was not cleaned first is harmless.
+insert into customer (fullName, address, phone_number, ssn)
+select 'Dan Badea1', 'Mures', '2224445558', '343-25-5859'
+where not exists (select 1 from customer where fullName = 'Dan Badea1' and ssn = '343-25-5859');
+insert into customer (fullName, address, phone_number, ssn)
+select 'Sergiu Gal1', 'Satu Mare', '46645345', '354-12-7742'
+where not exists (select 1 from customer where fullName = 'Sergiu Gal1' and ssn = '354-12-7742');
+
+insert into accounts (iban, currency, amount, customer_id, issued_at)
+select 'GB82WEST12345698765432', 2, 20, 1, date '2022-05-07'
+where not exists (select 1 from accounts where iban = 'GB82WEST12345698765432');
+insert into accounts (iban, currency, amount, customer_id, issued_at)
+select 'GB03BARC20038041157768', 1, 10, 1, date '2022-05-22'
+where not exists (select 1 from accounts where iban = 'GB03BARC20038041157768');